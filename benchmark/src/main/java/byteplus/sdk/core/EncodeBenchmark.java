@@ -0,0 +1,57 @@
+package byteplus.sdk.core;
+
+import com.alibaba.fastjson.JSON;
+import com.google.protobuf.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Encoding of request bodies: serializing, and serializing straight
+// into gzip while the signature digest is fed, as `HttpCaller.newCall` does.
+// `serialize` is the baseline of how much `encode` spends on compression.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodeBenchmark {
+    @Param({"WRITE_USER_EVENTS_100", "IMPORT_PRODUCTS_10K", "GENERAL_WRITE_DATA_10K"})
+    private Payloads.Request payload;
+
+    private HttpCaller httpCaller;
+
+    private Object request;
+
+    @Setup
+    public void setup() {
+        httpCaller = new HttpCaller(Payloads.newContext(false));
+        request = Payloads.request(payload);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        if (request instanceof Message) {
+            return ((Message) request).toByteArray();
+        }
+        return JSON.toJSONBytes(request);
+    }
+
+    @Benchmark
+    public HttpCaller.CompressedBody encode() throws IOException {
+        HttpCaller.BodyWriter bodyWriter = request instanceof Message ?
+                httpCaller.pbBodyWriter((Message) request) : httpCaller.jsonBodyWriter(request);
+        return httpCaller.gzipCompress(bodyWriter, httpCaller.newSignatureDigest());
+    }
+}
@@ -0,0 +1,67 @@
+package byteplus.sdk.core;
+
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictResponse;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Decompressing and parsing a gzip compressed predict response of 200 products,
+// with and without the parse buffer pooled by the calling thread
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    private final static String URL = "https://rec-b.volcengineapi.com/predict/api/retail/benchmark/home";
+
+    private final static MediaType PROTOBUF = MediaType.get("application/x-protobuf");
+
+    @Param({"false", "true"})
+    private boolean pooledParseBuffer;
+
+    private HttpCaller httpCaller;
+
+    private Request request;
+
+    private byte[] compressedResponse;
+
+    @Setup
+    public void setup() {
+        httpCaller = new HttpCaller(Payloads.newContext(pooledParseBuffer));
+        request = new Request.Builder().url(URL).build();
+        compressedResponse = Payloads.gzip(Payloads.predictResponse(200));
+    }
+
+    @Benchmark
+    public PredictResponse parsePredictResponse() throws IOException, BizException {
+        Response response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_2)
+                .code(200)
+                .message("OK")
+                .header("Content-Encoding", "gzip")
+                .body(ResponseBody.create(compressedResponse, PROTOBUF))
+                .build();
+        try (Response httpRsp = response) {
+            return httpCaller.parseResponse(URL, httpRsp, PredictResponse.parser());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package byteplus.sdk.core;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.Status;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ImportProductsRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictResponse;
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictResult;
+import byteplus.sdk.retail.protocol.ByteplusRetail.Product;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ProductsInlineSource;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ProductsInputConfig;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEvent;
+import byteplus.sdk.retail.protocol.ByteplusRetail.WriteUserEventsRequest;
+import com.google.protobuf.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+// Realistic requests and responses of the benchmarks. They are generated
+// from a fixed seed, so every run benchmarks the same bytes
+final class Payloads {
+    private final static long SEED = 20211101L;
+
+    private final static String[] EVENT_TYPES = {"impression", "click", "add-to-cart", "purchase"};
+
+    private final static String[] PLATFORMS = {"app", "desktop-web", "mobile-web"};
+
+    private final static String[] CATEGORIES = {"Shoes", "Clothing", "Electronics", "Home", "Beauty", "Sports"};
+
+    private final static String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+
+    // The payloads of request benchmarks
+    enum Request {
+        // Writes 100 user events, the batch size of realtime writing
+        WRITE_USER_EVENTS_100,
+        // Imports 10k products, the batch size of bulk imports
+        IMPORT_PRODUCTS_10K,
+        // Writes 10k rows of general data, which are encoded as JSON
+        GENERAL_WRITE_DATA_10K
+    }
+
+    private Payloads() {
+    }
+
+    static Object request(Request request) {
+        switch (request) {
+            case WRITE_USER_EVENTS_100:
+                return writeUserEventsRequest(100);
+            case IMPORT_PRODUCTS_10K:
+                return importProductsRequest(10_000);
+            case GENERAL_WRITE_DATA_10K:
+                return generalDataRows(10_000);
+            default:
+                throw new IllegalArgumentException("unknown request " + request);
+        }
+    }
+
+    static WriteUserEventsRequest writeUserEventsRequest(int count) {
+        Random random = new Random(SEED);
+        WriteUserEventsRequest.Builder request = WriteUserEventsRequest.newBuilder();
+        long timestamp = 1_635_724_800L;
+        for (int i = 0; i < count; i++) {
+            String productId = "product_" + random.nextInt(1_000_000);
+            request.addUserEvents(UserEvent.newBuilder()
+                    .setUserId("user_" + random.nextInt(10_000_000))
+                    .setEventType(EVENT_TYPES[random.nextInt(EVENT_TYPES.length)])
+                    .setEventTimestamp(timestamp + i)
+                    .setScene(UserEvent.Scene.newBuilder()
+                            .setSceneName("product detail page")
+                            .setPageNumber(random.nextInt(5))
+                            .setOffset(random.nextInt(20)))
+                    .setProductId(productId)
+                    .setDevice(UserEvent.Device.newBuilder()
+                            .setPlatform(PLATFORMS[random.nextInt(PLATFORMS.length)])
+                            .setOsType("android")
+                            .setAppVersion("9.2.0")
+                            .setDeviceModel("huawei-mate30")
+                            .setDeviceBrand("huawei")
+                            .setOsVersion("10")
+                            .setNetwork("4g"))
+                    .setContext(UserEvent.Context.newBuilder()
+                            .setRootProductId(productId))
+                    .setAttributionToken("eyJpc3MiOiJuaW5naGFvLm5ldCIsImV4cCI6IjE0Mzg5NTU0NDUiLCJuYW1lIjoid2FuZ2hhbyJ9")
+                    .setRecInfo("CiRiMjYzOWNlMy0yNzI4LTQ5YjgtODg4Ny02ZDE0YmJhYzE3MDYQ1M7bAxoD")
+                    .setTrafficSource("self")
+                    .setPurchaseCount(random.nextInt(3))
+                    .setDetailPageStayTime(random.nextInt(600))
+                    .putExtra("ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256))
+                    .build());
+        }
+        return request.build();
+    }
+
+    static ImportProductsRequest importProductsRequest(int count) {
+        Random random = new Random(SEED);
+        ProductsInlineSource.Builder source = ProductsInlineSource.newBuilder();
+        for (int i = 0; i < count; i++) {
+            source.addProducts(product(random, i));
+        }
+        return ImportProductsRequest.newBuilder()
+                .setInputConfig(ProductsInputConfig.newBuilder().setProductsInlineSource(source))
+                .build();
+    }
+
+    private static Product product(Random random, int index) {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        long price = 1000 + random.nextInt(100_000);
+        return Product.newBuilder()
+                .setProductId("product_" + index)
+                .addCategories(Product.Category.newBuilder()
+                        .setCategoryDepth(1)
+                        .addCategoryNodes(Product.Category.CategoryNode.newBuilder().setIdOrName(category)))
+                .addCategories(Product.Category.newBuilder()
+                        .setCategoryDepth(2)
+                        .addCategoryNodes(Product.Category.CategoryNode.newBuilder()
+                                .setIdOrName(category + "-" + random.nextInt(20))))
+                .addBrands(Product.Brand.newBuilder()
+                        .setBrandDepth(1)
+                        .setIdOrName(BRANDS[random.nextInt(BRANDS.length)]))
+                .setPrice(Product.Price.newBuilder()
+                        .setCurrentPrice(price)
+                        .setOriginPrice(price + random.nextInt(5000)))
+                .setIsRecommendable(true)
+                .setTitle(category + " product " + index + " with a title of a usual length")
+                .setQualityScore(random.nextDouble() * 5)
+                .addAllTags(Arrays.asList("new", "sale", "tag" + random.nextInt(100)))
+                .setDisplay(Product.Display.newBuilder()
+                        .addListingPageDisplayTags("free shipping")
+                        .addDetailPageDisplayTags("7 days return")
+                        .setListingPageDisplayType("image")
+                        .setCoverMultimediaUrl("https://images.example.com/products/" + index + ".jpg"))
+                .setProductSpec(Product.ProductSpec.newBuilder()
+                        .setProductGroupId("group_" + random.nextInt(2000))
+                        .setUserRating(random.nextDouble() * 5)
+                        .setCommentCount(random.nextInt(10_000))
+                        .setSource("self")
+                        .setPublishTimestamp(1_600_000_000L + random.nextInt(30_000_000)))
+                .setSeller(Product.Seller.newBuilder()
+                        .setId("seller_" + random.nextInt(500))
+                        .setSellerLevel("level" + random.nextInt(5))
+                        .setSellerRating(random.nextDouble() * 5))
+                .build();
+    }
+
+    static List<Map<String, Object>> generalDataRows(int count) {
+        Random random = new Random(SEED);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            row.put("id", "item_" + i);
+            row.put("title", category + " item " + i + " with a title of a usual length");
+            row.put("status", 1);
+            row.put("brand", BRANDS[random.nextInt(BRANDS.length)]);
+            row.put("current_price", 1000 + random.nextInt(100_000));
+            row.put("categories", "[{\"category_depth\":1,\"category_node\":[{\"id_or_name\":\"" + category + "\"}]}]");
+            row.put("tags", Arrays.asList("new", "sale", "tag" + random.nextInt(100)));
+            row.put("user_rating", random.nextDouble() * 5);
+            row.put("comment_count", random.nextInt(10_000));
+            row.put("publish_time", 1_600_000_000L + random.nextInt(30_000_000));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // A predict response of `count` products, as answered by the server
+    static PredictResponse predictResponse(int count) {
+        Random random = new Random(SEED);
+        PredictResult.Builder result = PredictResult.newBuilder();
+        for (int i = 0; i < count; i++) {
+            result.addResponseProducts(PredictResult.ResponseProduct.newBuilder()
+                    .setProductId("product_" + random.nextInt(1_000_000))
+                    .setRank(i + 1)
+                    .setPctr(random.nextDouble())
+                    .setPcvr(random.nextDouble())
+                    .setRecInfo("CiRiMjYzOWNlMy0yNzI4LTQ5YjgtODg4Ny02ZDE0YmJhYzE3MDYQ1M7bAxoD")
+                    .putExtra("reason", "rank")
+                    .build());
+        }
+        return PredictResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).setMessage("ok"))
+                .setRequestId("b2639ce3-2728-49b8-8887-6d14bbac1706")
+                .setValue(result)
+                .build();
+    }
+
+    static byte[] gzip(Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            message.writeTo(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Context newContext(boolean pooledParseBuffer) {
+        return new Context(new Context.Param()
+                .setTenant("benchmark")
+                .setTenantId("1000")
+                .setToken("c9a2f8f0b1e24e1c9b8f0a0e7d6c5b4a")
+                .setRegion(Region.CN)
+                .setPooledParseBuffer(pooledParseBuffer));
+    }
+}
@@ -0,0 +1,64 @@
+package byteplus.sdk.core;
+
+import okhttp3.Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+// Signing of requests and building their headers. The compressed body
+// of the payload is fed to the digest of every signature, as it is
+// signed in `HttpCaller.calSignature`
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignBenchmark {
+    @Param({"WRITE_USER_EVENTS_100", "IMPORT_PRODUCTS_10K"})
+    private Payloads.Request payload;
+
+    private HttpCaller httpCaller;
+
+    private byte[] compressedBody;
+
+    private byte[] sha256;
+
+    @Setup
+    public void setup() throws Exception {
+        httpCaller = new HttpCaller(Payloads.newContext(false));
+        compressedBody = Payloads.gzip((com.google.protobuf.Message) Payloads.request(payload));
+        sha256 = MessageDigest.getInstance("SHA-256").digest(compressedBody);
+    }
+
+    @Benchmark
+    public String sign() {
+        MessageDigest digest = httpCaller.newSignatureDigest();
+        digest.update(compressedBody);
+        return httpCaller.calSignature(digest, "1635724800", "b2639ce3");
+    }
+
+    @Benchmark
+    public String bytes2Hex() {
+        return httpCaller.bytes2Hex(sha256);
+    }
+
+    @Benchmark
+    public Headers buildHeaders() {
+        MessageDigest digest = httpCaller.newSignatureDigest();
+        digest.update(compressedBody);
+        Options options = Option.conv2Options(new Option[]{Option.withRequestId("b2639ce3-2728-49b8-8887-6d14bbac1706")});
+        return httpCaller.buildHeaders(options, digest, "application/x-protobuf");
+    }
+}
@@ -0,0 +1,189 @@
+package byteplus.sdk.loadtest;
+
+import byteplus.sdk.core.InMemoryMetrics;
+import byteplus.sdk.core.NetException;
+import byteplus.sdk.core.ResponseStatus;
+import com.google.protobuf.Message;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Sends open-loop traffic through a client: calls are started at a fixed rate
+// no matter how fast the former ones complete, as real traffic arrives.
+// A call's latency counts from when it should have started, so a stalled
+// sender or client is not hidden (no coordinated omission).
+//
+// The calls should be asynchronous, e.g. `client.predictAsync(...)`,
+// so the sender thread is never blocked by them.
+public class LoadDriver {
+    private final static String METRICS_ENDPOINT = "call";
+
+    @Accessors(chain = true)
+    @Setter
+    @Getter
+    public static class Param {
+        // Calls started per second
+        private double rate = 1000;
+
+        // How long the calls are started, besides the warmup
+        private Duration duration = Duration.ofSeconds(30);
+
+        // Calls started during the warmup are not reported
+        private Duration warmup = Duration.ofSeconds(5);
+
+        // Calls are dropped instead of started while so many calls are in flight,
+        // so an overloaded client can not exhaust the memory of the driver
+        private int maxInFlight = 10_000;
+
+        // How long to wait for the calls in flight after the last one is started
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    public static class Report {
+        private final long started;
+
+        private final long dropped;
+
+        // Calls completed with status code 0
+        private final long succeeded;
+
+        // Calls completed with other status codes, or failed
+        private final long failed;
+
+        private final Duration elapsed;
+
+        private final InMemoryMetrics.EndpointStats stats;
+
+        private Report(long started, long dropped, long succeeded, long failed,
+                       Duration elapsed, InMemoryMetrics.EndpointStats stats) {
+            this.started = started;
+            this.dropped = dropped;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.elapsed = elapsed;
+            this.stats = stats;
+        }
+
+        // Completed calls per second
+        public double getThroughput() {
+            return elapsed.isZero() ? 0 : (succeeded + failed) * 1e9 / elapsed.toNanos();
+        }
+
+        public Map<Integer, Long> getStatusCounts() {
+            return Objects.isNull(stats) ? Collections.emptyMap() : stats.getStatusCounts();
+        }
+
+        @Override
+        public String toString() {
+            if (Objects.isNull(stats)) {
+                return String.format("started:%d dropped:%d, no call completed", started, dropped);
+            }
+            return String.format("started:%d dropped:%d succeeded:%d failed:%d throughput:%.1f/s " +
+                            "latency p50:%dms p90:%dms p99:%dms p99.9:%dms max:%dms status:%s errors:%d timeouts:%d",
+                    started, dropped, succeeded, failed, getThroughput(),
+                    stats.getLatencyPercentile(50).toMillis(), stats.getLatencyPercentile(90).toMillis(),
+                    stats.getLatencyPercentile(99).toMillis(), stats.getLatencyPercentile(99.9).toMillis(),
+                    stats.getMaxLatency().toMillis(), stats.getStatusCounts(),
+                    stats.getErrorCount(), stats.getTimeoutCount());
+        }
+    }
+
+    private final Param param;
+
+    private final Supplier<CompletableFuture<? extends Message>> call;
+
+    public LoadDriver(Param param, Supplier<CompletableFuture<? extends Message>> call) {
+        if (param.rate <= 0) {
+            throw new RuntimeException("Rate should be positive");
+        }
+        this.param = param;
+        this.call = call;
+    }
+
+    // Blocks until the calls are started and completed, or the drain timeout elapses
+    public Report run() throws InterruptedException {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong inFlight = new AtomicLong();
+        AtomicLong lastCompleted = new AtomicLong();
+        long started = 0;
+        long dropped = 0;
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / param.rate);
+        long begin = System.nanoTime();
+        long measureBegin = begin + param.warmup.toNanos();
+        long end = measureBegin + param.duration.toNanos();
+        for (long i = 0; ; i++) {
+            long scheduled = begin + i * intervalNanos;
+            if (scheduled - end >= 0) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled - measureBegin >= 0;
+            if (inFlight.get() >= param.maxInFlight) {
+                if (measured) {
+                    dropped++;
+                }
+                continue;
+            }
+            if (measured) {
+                started++;
+            }
+            inFlight.incrementAndGet();
+            CompletableFuture<? extends Message> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((rsp, e) -> {
+                inFlight.decrementAndGet();
+                if (!measured) {
+                    return;
+                }
+                long now = System.nanoTime();
+                lastCompleted.accumulateAndGet(now, Math::max);
+                metrics.recordLatency(METRICS_ENDPOINT, now - scheduled);
+                if (Objects.nonNull(e)) {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    // the sdk fails timeouts with NetException
+                    metrics.recordError(METRICS_ENDPOINT, cause instanceof NetException);
+                    failed.increment();
+                    return;
+                }
+                int code = ResponseStatus.codeOf(rsp);
+                metrics.recordStatus(METRICS_ENDPOINT, code);
+                if (code == 0) {
+                    succeeded.increment();
+                } else {
+                    failed.increment();
+                }
+            });
+        }
+        long drainDeadline = System.nanoTime() + param.drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // from the first measured call to the last completed one
+        Duration elapsed = Duration.ofNanos(Math.max(0, lastCompleted.get() - measureBegin));
+        InMemoryMetrics.EndpointStats stats = metrics.getEndpointStats().get(METRICS_ENDPOINT);
+        return new Report(started, dropped, succeeded.sum(), failed.sum(), elapsed, stats);
+    }
+}
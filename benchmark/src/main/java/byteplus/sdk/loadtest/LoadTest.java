@@ -0,0 +1,196 @@
+package byteplus.sdk.loadtest;
+
+import byteplus.sdk.core.InMemoryMetrics;
+import byteplus.sdk.core.Option;
+import byteplus.sdk.core.Region;
+import byteplus.sdk.core.RetryPolicy;
+import byteplus.sdk.general.GeneralClient;
+import byteplus.sdk.general.GeneralClientBuilder;
+import byteplus.sdk.retail.RetailClient;
+import byteplus.sdk.retail.RetailClientBuilder;
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load tests the clients against local mock servers, and reports the
+// throughput and latency percentiles seen by the callers, the metrics
+// recorded by the sdk, and the requests received by every server.
+//
+// Usage: LoadTest <scenario> [calls per second, 1000 in default] [seconds, 30 in default]
+// Scenarios:
+//   predict  -> retail predict against one server
+//   write    -> general writeData of 100 rows against one server
+//   faults   -> retail predict with retries, while the server answers 5% of
+//               requests with 429 and lets 1% of them time out
+//   failover -> retail predict against two servers, the first one is down
+//               during the middle third of the test, calls should fail over
+//               to the second one within a ping interval. They stay there
+//               after the first one recovers, a host with similar latency
+//               is not worth switching back to
+public class LoadTest {
+    private final static String TENANT = "loadtest";
+
+    private final static Duration TIMEOUT = Duration.ofMillis(800);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadTest <predict|write|faults|failover> [calls per second] [seconds]");
+            System.exit(1);
+        }
+        String scenario = args[0];
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        LoadDriver.Param driverParam = new LoadDriver.Param().setRate(rate).setDuration(duration);
+        switch (scenario) {
+            case "predict":
+                runPredict(driverParam, new MockServer.Faults(), null);
+                break;
+            case "write":
+                runWrite(driverParam);
+                break;
+            case "faults":
+                MockServer.Faults faults = new MockServer.Faults()
+                        .setTooManyRequestsRate(0.05)
+                        .setTimeoutRate(0.01)
+                        .setTimeoutDelay(TIMEOUT.multipliedBy(2));
+                runPredict(driverParam, faults, new RetryPolicy());
+                break;
+            case "failover":
+                runFailover(driverParam);
+                break;
+            default:
+                System.err.println("Unknown scenario " + scenario);
+                System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void runPredict(LoadDriver.Param driverParam, MockServer.Faults faults,
+                                   RetryPolicy retryPolicy) throws Exception {
+        try (MockServer server = new MockServer(new MockServer.Param().setFaults(faults))) {
+            InMemoryMetrics sdkMetrics = new InMemoryMetrics();
+            RetailClientBuilder builder = retailClientBuilder(Arrays.asList(server.getHost()), sdkMetrics);
+            if (retryPolicy != null) {
+                builder.retryPolicy(retryPolicy);
+            }
+            RetailClient client = builder.build();
+            LoadDriver.Report report = new LoadDriver(driverParam,
+                    () -> client.predictAsync(predictRequest(), "home", Option.withTimeout(TIMEOUT))).run();
+            report(report, sdkMetrics, server);
+            client.release();
+        }
+    }
+
+    private static void runWrite(LoadDriver.Param driverParam) throws Exception {
+        try (MockServer server = new MockServer()) {
+            InMemoryMetrics sdkMetrics = new InMemoryMetrics();
+            GeneralClient client = new GeneralClientBuilder()
+                    .tenant(TENANT)
+                    .tenantId("1000")
+                    .token("loadtest-token")
+                    .schema("http")
+                    .hosts(Arrays.asList(server.getHost()))
+                    .region(Region.CN)
+                    .maxRequests(4096)
+                    .maxRequestsPerHost(4096)
+                    .metricsCollector(sdkMetrics)
+                    .build();
+            List<Map<String, Object>> rows = dataRows(100);
+            LoadDriver.Report report = new LoadDriver(driverParam,
+                    () -> client.writeDataAsync(rows, "item", Option.withTimeout(TIMEOUT))).run();
+            report(report, sdkMetrics, server);
+            client.release();
+        }
+    }
+
+    private static void runFailover(LoadDriver.Param driverParam) throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (MockServer primary = new MockServer(); MockServer secondary = new MockServer()) {
+            InMemoryMetrics sdkMetrics = new InMemoryMetrics();
+            RetailClient client = retailClientBuilder(Arrays.asList(primary.getHost(), secondary.getHost()), sdkMetrics)
+                    .pingInterval(Duration.ofSeconds(1))
+                    // the first pings of a cold JVM may exceed the default timeout, and
+                    // the failure would keep the second server unhealthy when the first goes down
+                    .pingTimeout(Duration.ofSeconds(1))
+                    // one failed ping marks the host unhealthy, with the default window
+                    // of 60 pings it takes 6 of them, longer than the outage of a short test
+                    .pingWindowSize(10)
+                    .build();
+            long third = driverParam.getDuration().toMillis() / 3;
+            long warmup = driverParam.getWarmup().toMillis();
+            scheduler.schedule(() -> setDown(primary, true), warmup + third, TimeUnit.MILLISECONDS);
+            scheduler.schedule(() -> setDown(primary, false), warmup + 2 * third, TimeUnit.MILLISECONDS);
+            LoadDriver.Report report = new LoadDriver(driverParam,
+                    () -> client.predictAsync(predictRequest(), "home", Option.withTimeout(TIMEOUT))).run();
+            report(report, sdkMetrics, primary, secondary);
+            client.release();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static void setDown(MockServer server, boolean down) {
+        try {
+            server.setDown(down);
+            System.out.println((down ? "took down " : "brought up ") + server.getHost());
+        } catch (Exception e) {
+            System.err.println("fail to change server " + server.getHost() + ", err:" + e);
+        }
+    }
+
+    private static RetailClientBuilder retailClientBuilder(List<String> hosts, InMemoryMetrics sdkMetrics) {
+        return new RetailClientBuilder()
+                .tenant(TENANT)
+                .tenantId("1000")
+                .token("loadtest-token")
+                .schema("http")
+                .hosts(hosts)
+                .region(Region.CN)
+                .maxRequests(4096)
+                .maxRequestsPerHost(4096)
+                .metricsCollector(sdkMetrics);
+    }
+
+    private static PredictRequest predictRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return PredictRequest.newBuilder()
+                .setUserId("user_" + random.nextInt(1_000_000))
+                .setSize(100)
+                .setScene(UserEvent.Scene.newBuilder().setSceneName("home"))
+                .build();
+    }
+
+    private static List<Map<String, Object>> dataRows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", "item_" + i);
+            row.put("title", "item " + i + " with a title of a usual length");
+            row.put("status", 1);
+            row.put("current_price", 1000 + i);
+            row.put("tags", Arrays.asList("new", "sale"));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void report(LoadDriver.Report report, InMemoryMetrics sdkMetrics, MockServer... servers) {
+        System.out.println("callers: " + report);
+        sdkMetrics.getEndpointStats().forEach((endpoint, stats) ->
+                System.out.println("sdk " + endpoint + ": " + stats));
+        System.out.println("sdk host switches: " + sdkMetrics.getHostSwitchCount());
+        for (MockServer server : servers) {
+            System.out.println("server " + server);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package byteplus.sdk.loadtest;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.ListOperationsResponse;
+import byteplus.sdk.common.protocol.ByteplusCommon.Operation;
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import byteplus.sdk.common.protocol.ByteplusCommon.Status;
+import byteplus.sdk.general.protocol.ByteplusGeneral;
+import byteplus.sdk.retail.protocol.ByteplusRetail;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// A local server answering the endpoints of RetailURL, GeneralURL, ByteairURL
+// and CommonURL like Byteplus does, to load test the clients without calling
+// production. Requests are answered after a latency sampled from the route's
+// distribution, and faults are injected at the rates of `Faults`.
+//
+// It serves HTTP/1.1 only, and does not check signatures.
+// It is test code, but lives in the main sources of this module, which is
+// never published nor part of the sdk build, so that benchmarks.jar carries
+// it for LoadTest.
+public class MockServer implements AutoCloseable {
+    private final static int STATUS_CODE_SUCCESS = 0;
+
+    private final static int STATUS_CODE_IDEMPOTENT = 409;
+
+    private final static int STATUS_CODE_TOO_MANY_REQUEST = 429;
+
+    private final static int HTTP_SERVER_ERROR = 500;
+
+    private final static AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    static {
+        // The headers and the body of a response are written separately, without
+        // TCP_NODELAY the body waits for the delayed ACK of the headers (~40ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    // The endpoints served, they decide the shape of the responses
+    public enum Route {
+        PING,
+        // predict of retail, its status is a Status message
+        RETAIL_PREDICT,
+        ACK_SERVER_IMPRESSIONS,
+        // predict of general and byteair, its status is a top level code
+        PREDICT,
+        CALLBACK,
+        WRITE,
+        IMPORT,
+        DONE,
+        GET_OPERATION,
+        LIST_OPERATIONS
+    }
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // 0 picks a free port
+        private int port = 0;
+
+        private LatencyDistribution predictLatency =
+                LatencyDistribution.logNormal(Duration.ofMillis(20), Duration.ofMillis(80));
+
+        // Latency of the data endpoints, e.g. write, import and operation
+        private LatencyDistribution dataLatency =
+                LatencyDistribution.logNormal(Duration.ofMillis(30), Duration.ofMillis(150));
+
+        // Products or items of each predict response
+        private int predictSize = 100;
+
+        // Compress responses when the client accepts gzip
+        private boolean gzip = true;
+
+        private Faults faults = new Faults();
+    }
+
+    // Rates (0 ~ 1) of the requests answered with faults, pings never fail
+    @Accessors(chain = true)
+    @Setter
+    @Getter
+    public static class Faults {
+        // Answered with status code 429
+        private double tooManyRequestsRate;
+
+        // Answered with status code 409
+        private double idempotentRate;
+
+        // Answered with http status 500
+        private double serverErrorRate;
+
+        // Answered after `timeoutDelay`, which should be longer than the timeout of the clients
+        private double timeoutRate;
+
+        private Duration timeoutDelay = Duration.ofSeconds(10);
+    }
+
+    private final Param param;
+
+    private final ExecutorService executor;
+
+    // Encoded results of predict, they are merged with the status of each response
+    private final byte[] retailPredictValue;
+
+    private final byte[] predictValue;
+
+    private final Map<Route, LongAdder> requestCounts = new EnumMap<>(Route.class);
+
+    private final LongAdder requestBytes = new LongAdder();
+
+    private final LongAdder responseBytes = new LongAdder();
+
+    private volatile Faults faults;
+
+    // null when the server is down, guarded by this
+    private HttpServer server;
+
+    @Getter
+    private final int port;
+
+    public MockServer(Param param) throws IOException {
+        this.param = param;
+        this.faults = param.faults;
+        this.executor = Executors.newCachedThreadPool(MockServer::newThread);
+        this.retailPredictValue = retailPredictValue(param.predictSize);
+        this.predictValue = predictValue(param.predictSize);
+        for (Route route : Route.values()) {
+            requestCounts.put(route, new LongAdder());
+        }
+        this.server = startServer(param.port);
+        this.port = server.getAddress().getPort();
+    }
+
+    public MockServer() throws IOException {
+        this(new Param());
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "mock-server-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // The host to configure in clients
+    public String getHost() {
+        return "127.0.0.1:" + port;
+    }
+
+    // Takes effect on the next requests
+    public void setFaults(Faults faults) {
+        this.faults = faults;
+    }
+
+    // A down server refuses connections, as a crashed host does.
+    // Requests in flight are cut off
+    public synchronized void setDown(boolean down) throws IOException {
+        if (down && Objects.nonNull(server)) {
+            server.stop(0);
+            server = null;
+        } else if (!down && Objects.isNull(server)) {
+            server = startServer(port);
+        }
+    }
+
+    public long getRequestCount(Route route) {
+        return requestCounts.get(route).sum();
+    }
+
+    // Requests of all the routes but ping
+    public long getRequestCount() {
+        long count = 0;
+        for (Map.Entry<Route, LongAdder> entry : requestCounts.entrySet()) {
+            if (entry.getKey() != Route.PING) {
+                count += entry.getValue().sum();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("host:").append(getHost());
+        requestCounts.forEach((route, count) -> {
+            if (count.sum() > 0) {
+                builder.append(' ').append(route).append(':').append(count.sum());
+            }
+        });
+        builder.append(" reqBytes:").append(requestBytes.sum()).append(" rspBytes:").append(responseBytes.sum());
+        return builder.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (Objects.nonNull(server)) {
+            server.stop(0);
+            server = null;
+        }
+        executor.shutdownNow();
+    }
+
+    private HttpServer startServer(int port) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        return httpServer;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Route route = routeOf(exchange.getRequestURI().getPath(), exchange.getRequestURI().getQuery());
+            requestCounts.get(route).increment();
+            requestBytes.add(drain(exchange));
+            if (route == Route.PING) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            Faults faults = this.faults;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LatencyDistribution latency = isPredict(route) ? param.predictLatency : param.dataLatency;
+            long delayNanos = latency.sampleNanos();
+            if (random.nextDouble() < faults.timeoutRate) {
+                delayNanos = faults.timeoutDelay.toNanos();
+            }
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+            if (random.nextDouble() < faults.serverErrorRate) {
+                exchange.sendResponseHeaders(HTTP_SERVER_ERROR, -1);
+                return;
+            }
+            int code = STATUS_CODE_SUCCESS;
+            double faultSample = random.nextDouble();
+            if (faultSample < faults.tooManyRequestsRate) {
+                code = STATUS_CODE_TOO_MANY_REQUEST;
+            } else if (faultSample < faults.tooManyRequestsRate + faults.idempotentRate) {
+                code = STATUS_CODE_IDEMPOTENT;
+            }
+            String requestId = exchange.getRequestHeaders().getFirst("Request-Id");
+            respond(exchange, responseOf(route, code, Objects.isNull(requestId) ? "" : requestId));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Route routeOf(String path, String query) {
+        String method = Objects.isNull(query) ? "" : query;
+        if (path.equals("/predict/api/ping")) {
+            return Route.PING;
+        }
+        if (path.startsWith("/predict/api/retail/")) {
+            return path.endsWith("/ack_server_impressions") ? Route.ACK_SERVER_IMPRESSIONS : Route.RETAIL_PREDICT;
+        }
+        if (path.startsWith("/predict/api/")) {
+            return path.endsWith("/callback") ? Route.CALLBACK : Route.PREDICT;
+        }
+        if (path.endsWith("/operation")) {
+            return method.contains("method=list") ? Route.LIST_OPERATIONS : Route.GET_OPERATION;
+        }
+        if (path.endsWith("/done")) {
+            return Route.DONE;
+        }
+        return method.contains("method=import") ? Route.IMPORT : Route.WRITE;
+    }
+
+    private boolean isPredict(Route route) {
+        return route == Route.RETAIL_PREDICT || route == Route.PREDICT;
+    }
+
+    // Reads the whole request body, returns its size on the wire
+    private long drain(HttpExchange exchange) throws IOException {
+        CountingInputStream counter = new CountingInputStream(exchange.getRequestBody());
+        PushbackInputStream in = new PushbackInputStream(counter);
+        int first = in.read();
+        if (first < 0) {
+            // an empty body is not a gzip stream
+            return 0;
+        }
+        in.unread(first);
+        InputStream body = in;
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (Objects.nonNull(encoding) && encoding.contains("gzip")) {
+            body = new GZIPInputStream(in);
+        }
+        byte[] buffer = new byte[8192];
+        while (body.read(buffer) >= 0) {
+            // discard
+        }
+        return counter.count;
+    }
+
+    private byte[] responseOf(Route route, int code, String requestId) {
+        Status status = Status.newBuilder().setCode(code).build();
+        switch (route) {
+            case RETAIL_PREDICT:
+                // protobuf merges concatenated messages, so the cached result is appended as is
+                return concat(ByteplusRetail.PredictResponse.newBuilder()
+                        .setStatus(status)
+                        .setRequestId(requestId)
+                        .build().toByteArray(), retailPredictValue);
+            case PREDICT:
+                return concat(ByteplusGeneral.PredictResponse.newBuilder()
+                        .setCode(code)
+                        .setRequestId(requestId)
+                        .build().toByteArray(), predictValue);
+            case CALLBACK:
+                return ByteplusGeneral.CallbackResponse.newBuilder().setCode(code).build().toByteArray();
+            case IMPORT:
+            case GET_OPERATION:
+                return OperationResponse.newBuilder()
+                        .setStatus(status)
+                        .setOperation(Operation.newBuilder()
+                                .setName("operation_" + requestId)
+                                .setDone(route == Route.GET_OPERATION))
+                        .build().toByteArray();
+            case LIST_OPERATIONS:
+                return ListOperationsResponse.newBuilder().setStatus(status).build().toByteArray();
+            default:
+                // the status is the first field of all the other responses
+                return OperationResponse.newBuilder().setStatus(status).build().toByteArray();
+        }
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (param.gzip && Objects.nonNull(acceptEncoding) && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-protobuf");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        responseBytes.add(body.length);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private static byte[] retailPredictValue(int size) {
+        ByteplusRetail.PredictResult.Builder result = ByteplusRetail.PredictResult.newBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            result.addResponseProducts(ByteplusRetail.PredictResult.ResponseProduct.newBuilder()
+                    .setProductId("product_" + random.nextInt(1_000_000))
+                    .setRank(i + 1)
+                    .setPctr(random.nextDouble())
+                    .setPcvr(random.nextDouble())
+                    .setRecInfo("CiRiMjYzOWNlMy0yNzI4LTQ5YjgtODg4Ny02ZDE0YmJhYzE3MDYQ1M7bAxoD"));
+        }
+        return ByteplusRetail.PredictResponse.newBuilder().setValue(result).build().toByteArray();
+    }
+
+    private static byte[] predictValue(int size) {
+        ByteplusGeneral.PredictResult.Builder result = ByteplusGeneral.PredictResult.newBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            result.addItems(ByteplusGeneral.PredictResultItem.newBuilder()
+                    .setId("item_" + random.nextInt(1_000_000))
+                    .setRank(i + 1)
+                    .setTransData("CiRiMjYzOWNlMy0yNzI4LTQ5YjgtODg4Ny02ZDE0YmJhYzE3MDYQ1M7bAxoD"));
+        }
+        result.setTotalCount(size);
+        return ByteplusGeneral.PredictResponse.newBuilder().setValue(result).build().toByteArray();
+    }
+
+    // Counts the bytes read through it
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int n = in.read(bytes, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
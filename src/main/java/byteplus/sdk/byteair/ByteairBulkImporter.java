@@ -0,0 +1,16 @@
+package byteplus.sdk.byteair;
+
+import byteplus.sdk.common.BulkImporter;
+import byteplus.sdk.common.DataBulkImporter;
+
+// Imports an arbitrarily large stream of data rows into one topic, see DataBulkImporter
+public class ByteairBulkImporter extends DataBulkImporter {
+
+    public ByteairBulkImporter(ByteairClient client, BulkImporter.Param param) {
+        super(client::importDataAsync, param);
+    }
+
+    public ByteairBulkImporter(ByteairClient client) {
+        this(client, new BulkImporter.Param());
+    }
+}
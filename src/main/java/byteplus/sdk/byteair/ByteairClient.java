@@ -9,8 +9,10 @@ import byteplus.sdk.byteair.protocol.ByteplusByteair.*;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ByteairClient extends CommonClient {
     // Write
@@ -21,6 +23,17 @@ public interface ByteairClient extends CommonClient {
     WriteResponse writeData(List<Map<String, Object>> dataList, String topic,
                             Option... opts) throws NetException, BizException;
 
+    // WriteRawData
+    //
+    // Same as `writeData`, but the rows are already encoded as JSON objects
+    // in UTF-8, they are copied into the request as is, without being parsed.
+    WriteResponse writeRawData(List<byte[]> jsonRows, String topic,
+                               Option... opts) throws NetException, BizException;
+
+    // Same as above, but `jsonArray` is all the rows encoded as one JSON array
+    WriteResponse writeRawData(byte[] jsonArray, String topic,
+                               Option... opts) throws NetException, BizException;
+
     // Import
     //
     // Bulk import of data.
@@ -37,6 +50,12 @@ public interface ByteairClient extends CommonClient {
     OperationResponse importData(List<Map<String, Object>> dataList, String topic,
                                  Option... opts) throws NetException, BizException;
 
+    // Same as above, but the rows are pulled from the iterator and encoded into
+    // the compressed request one by one, so the uncompressed request is never
+    // held in memory. The iterator should yield at most 10000 rows.
+    OperationResponse importData(Iterator<Map<String, Object>> dataIterator, String topic,
+                                 Option... opts) throws NetException, BizException;
+
     // Done
     //
     // When the data of a day is imported completely,
@@ -79,4 +98,29 @@ public interface ByteairClient extends CommonClient {
     CallbackResponse callback(CallbackRequest request,
                               Option... opts) throws NetException, BizException;
 
+    // Asynchronous versions of the calls above.
+    //
+    // They are driven by OkHttp's dispatcher instead of blocking the calling
+    // thread, the returned future is completed exceptionally with NetException
+    // or BizException when the call fails.
+    CompletableFuture<WriteResponse> writeDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                    Option... opts);
+
+    CompletableFuture<WriteResponse> writeRawDataAsync(List<byte[]> jsonRows, String topic, Option... opts);
+
+    CompletableFuture<WriteResponse> writeRawDataAsync(byte[] jsonArray, String topic, Option... opts);
+
+    CompletableFuture<OperationResponse> importDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                         Option... opts);
+
+    CompletableFuture<OperationResponse> importDataAsync(Iterator<Map<String, Object>> dataIterator, String topic,
+                                                         Option... opts);
+
+    CompletableFuture<DoneResponse> doneAsync(List<LocalDate> dateList, String topic, Option... opts);
+
+    CompletableFuture<PredictResponse> predictAsync(PredictRequest request, String scene, Option... opts);
+
+    CompletableFuture<PredictResponse> predictAsync(PredictRequest request, Option... opts);
+
+    CompletableFuture<CallbackResponse> callbackAsync(CallbackRequest request, Option... opts);
 }
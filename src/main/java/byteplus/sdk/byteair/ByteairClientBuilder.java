@@ -1,14 +1,30 @@
 package byteplus.sdk.byteair;
 
 import byteplus.sdk.core.Context;
+import byteplus.sdk.core.CallInterceptor;
+import byteplus.sdk.core.CircuitBreaker;
+import byteplus.sdk.core.HedgePolicy;
+import byteplus.sdk.core.HostSelectStrategy;
+import byteplus.sdk.core.MetricsCollector;
+import byteplus.sdk.core.PredictCache;
 import byteplus.sdk.core.Region;
+import byteplus.sdk.core.RequestIdGenerator;
+import byteplus.sdk.core.RetryPolicy;
+import byteplus.sdk.byteair.protocol.ByteplusByteair.PredictRequest;
+import byteplus.sdk.byteair.protocol.ByteplusByteair.PredictResponse;
+import okhttp3.EventListener;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 public class ByteairClientBuilder {
     private final Context.Param param;
 
+    private BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
     public ByteairClientBuilder() {
         this.param = new Context.Param();
     }
@@ -48,7 +64,144 @@ public class ByteairClientBuilder {
         return this;
     }
 
+    public ByteairClientBuilder pooledParseBuffer(boolean pooledParseBuffer) {
+        this.param.setPooledParseBuffer(pooledParseBuffer);
+        return this;
+    }
+
+    public ByteairClientBuilder maxIdleConnections(int maxIdleConnections) {
+        this.param.setMaxIdleConnections(maxIdleConnections);
+        return this;
+    }
+
+    public ByteairClientBuilder keepAliveDuration(Duration keepAliveDuration) {
+        this.param.setKeepAliveDuration(keepAliveDuration);
+        return this;
+    }
+
+    public ByteairClientBuilder maxRequests(int maxRequests) {
+        this.param.setMaxRequests(maxRequests);
+        return this;
+    }
+
+    public ByteairClientBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+        this.param.setMaxRequestsPerHost(maxRequestsPerHost);
+        return this;
+    }
+
+    public ByteairClientBuilder http2(boolean http2) {
+        this.param.setHttp2(http2);
+        return this;
+    }
+
+    public ByteairClientBuilder executor(ExecutorService executor) {
+        this.param.setExecutor(executor);
+        return this;
+    }
+
+    public ByteairClientBuilder hostSelectStrategy(HostSelectStrategy hostSelectStrategy) {
+        this.param.setHostSelectStrategy(hostSelectStrategy);
+        return this;
+    }
+
+    public ByteairClientBuilder pingInterval(Duration pingInterval) {
+        this.param.setPingInterval(pingInterval);
+        return this;
+    }
+
+    public ByteairClientBuilder pingWindowSize(int pingWindowSize) {
+        this.param.setPingWindowSize(pingWindowSize);
+        return this;
+    }
+
+    public ByteairClientBuilder pingFailureRateThreshold(float pingFailureRateThreshold) {
+        this.param.setPingFailureRateThreshold(pingFailureRateThreshold);
+        return this;
+    }
+
+    public ByteairClientBuilder pingTimeout(Duration pingTimeout) {
+        this.param.setPingTimeout(pingTimeout);
+        return this;
+    }
+
+    public ByteairClientBuilder adaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.param.setAdaptiveConcurrency(adaptiveConcurrency);
+        return this;
+    }
+
+    public ByteairClientBuilder initialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.param.setInitialConcurrencyLimit(initialConcurrencyLimit);
+        return this;
+    }
+
+    public ByteairClientBuilder maxConcurrencyLimit(int maxConcurrencyLimit) {
+        this.param.setMaxConcurrencyLimit(maxConcurrencyLimit);
+        return this;
+    }
+
+    public ByteairClientBuilder maxConcurrencyWaiters(int maxConcurrencyWaiters) {
+        this.param.setMaxConcurrencyWaiters(maxConcurrencyWaiters);
+        return this;
+    }
+
+    public ByteairClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.param.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    public ByteairClientBuilder hedgePolicy(HedgePolicy hedgePolicy) {
+        this.param.setHedgePolicy(hedgePolicy);
+        return this;
+    }
+
+    public ByteairClientBuilder circuitBreaker(CircuitBreaker circuitBreaker) {
+        this.param.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    public ByteairClientBuilder predictCache(PredictCache predictCache) {
+        this.param.setPredictCache(predictCache);
+        return this;
+    }
+
+    public ByteairClientBuilder coalescePredict(boolean coalescePredict) {
+        this.param.setCoalescePredict(coalescePredict);
+        return this;
+    }
+
+    // Receives the metrics of the http calls, e.g. `new InMemoryMetrics()`
+    public ByteairClientBuilder metricsCollector(MetricsCollector metricsCollector) {
+        this.param.setMetricsCollector(metricsCollector);
+        return this;
+    }
+
+    // Observe the phases of every http call, e.g. to inject trace context
+    public ByteairClientBuilder interceptors(List<CallInterceptor> interceptors) {
+        this.param.setInterceptors(interceptors);
+        return this;
+    }
+
+    // Generates the request ids of calls without `Option.withRequestId`,
+    // time ordered ids of `TimeOrderedIdGenerator` in default
+    public ByteairClientBuilder requestIdGenerator(RequestIdGenerator requestIdGenerator) {
+        this.param.setRequestIdGenerator(requestIdGenerator);
+        return this;
+    }
+
+    // Reports the DNS, connecting and TLS timings of every http call
+    public ByteairClientBuilder eventListenerFactory(EventListener.Factory eventListenerFactory) {
+        this.param.setEventListenerFactory(eventListenerFactory);
+        return this;
+    }
+
+    // Answers predict calls while the circuit breaker of their scene is open,
+    // it receives the request and the scene
+    public ByteairClientBuilder predictFallback(BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
+        this.predictFallback = predictFallback;
+        return this;
+    }
+
     public ByteairClient build() {
-        return new ByteairClientImpl(this.param);
+        return new ByteairClientImpl(this.param, predictFallback);
     }
 }
@@ -4,6 +4,7 @@ import byteplus.sdk.byteair.protocol.ByteplusByteair;
 import byteplus.sdk.common.CommonClientImpl;
 import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
 import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.CircuitBreakerOpenException;
 import byteplus.sdk.core.Context;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
@@ -21,9 +22,12 @@ import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 import static byteplus.sdk.core.Constant.MAX_IMPORT_ITEM_COUNT;
 import static byteplus.sdk.core.Constant.MAX_WRITE_ITEM_COUNT;
@@ -38,8 +42,12 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
 
     private final ByteairURL byteairURL;
 
-    ByteairClientImpl(Context.Param param) {
+    // Optional, answers predict calls while the circuit breaker is open
+    private final BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
+    ByteairClientImpl(Context.Param param, BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
         super(param);
+        this.predictFallback = predictFallback;
         this.byteairURL = new ByteairURL(context);
     }
 
@@ -65,6 +73,34 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
         return response;
     }
 
+    @Override
+    public WriteResponse writeRawData(List<byte[]> jsonRows, String topic,
+                                      Option... opts) throws NetException, BizException {
+        checkJsonRows(jsonRows);
+        if (jsonRows.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (jsonRows.size() > MAX_IMPORT_ITEM_COUNT) {
+                throw new BizException(ERR_MSG_TOO_MANY_ITEMS);
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = byteairURL.getWriteDataUrlFormat().replace("{}", topic);
+        WriteResponse response = httpCaller.doRawJsonRequest(url, jsonRows, parser, opts);
+        log.debug("[ByteplusSDK][WriteData] rsp:\n{}", response);
+        return response;
+    }
+
+    @Override
+    public WriteResponse writeRawData(byte[] jsonArray, String topic,
+                                      Option... opts) throws NetException, BizException {
+        checkJsonArray(jsonArray);
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = byteairURL.getWriteDataUrlFormat().replace("{}", topic);
+        WriteResponse response = httpCaller.doRawJsonRequest(url, jsonArray, parser, opts);
+        log.debug("[ByteplusSDK][WriteData] rsp:\n{}", response);
+        return response;
+    }
+
     @Override
     public OperationResponse importData(List<Map<String, Object>> dataList, String topic,
                                         Option... opts) throws NetException, BizException {
@@ -79,9 +115,30 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
         return response;
     }
 
+    @Override
+    public OperationResponse importData(Iterator<Map<String, Object>> dataIterator, String topic,
+                                        Option... opts) throws NetException, BizException {
+        Iterator<Map<String, Object>> rows = atMost(dataIterator, MAX_IMPORT_ITEM_COUNT, ERR_MSG_TOO_MANY_ITEMS);
+        String url = byteairURL.getImportDataUrlFormat().replace("{}", topic);
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        OperationResponse response = httpCaller.doJsonRequest(url, rows, parser, opts);
+        log.debug("[ByteplusSDK][ImportData] rsp:\n{}", response);
+        return response;
+    }
+
     @Override
     public DoneResponse done(List<LocalDate> dateList, String topic,
                              Option... opts) throws NetException, BizException {
+        String urlFormat = byteairURL.getDoneUrlFormat();
+        String url = urlFormat.replace("{}", topic);
+        Parser<DoneResponse> parser = DoneResponse.parser();
+        DoneRequest request = buildDoneRequest(dateList);
+        DoneResponse response = httpCaller.doPbRequest(url, request, parser, opts);
+        log.debug("[ByteplusSDK][Done] rsp:\n{}", response);
+        return response;
+    }
+
+    private DoneRequest buildDoneRequest(List<LocalDate> dateList) {
         List<Date> dates = new ArrayList<>();
         if (Objects.isNull(dateList) || dateList.isEmpty()) {
             LocalDate previousDay = LocalDate.now().plusDays(-1);
@@ -91,13 +148,7 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
                 addDoneDate(dates, date);
             }
         }
-        String urlFormat = byteairURL.getDoneUrlFormat();
-        String url = urlFormat.replace("{}", topic);
-        Parser<DoneResponse> parser = DoneResponse.parser();
-        DoneRequest request = DoneRequest.newBuilder().addAllDataDates(dates).build();
-        DoneResponse response = httpCaller.doPbRequest(url, request, parser, opts);
-        log.debug("[ByteplusSDK][Done] rsp:\n{}", response);
-        return response;
+        return DoneRequest.newBuilder().addAllDataDates(dates).build();
     }
 
     private void addDoneDate(List<Date> dateMapList, LocalDate date) {
@@ -115,7 +166,17 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
                                    Option... opts) throws NetException, BizException {
         String url = byteairURL.getPredictUrlFormat().replace("{}", scene);
         Parser<PredictResponse> parser = PredictResponse.parser();
-        PredictResponse response = httpCaller.doPbRequest(url, request, parser, opts);
+        PredictResponse response;
+        try {
+            response = doPredict(url, scene, request, opts,
+                    () -> httpCaller.doPbRequestHedged(url, request, parser, opts));
+        } catch (CircuitBreakerOpenException e) {
+            if (Objects.isNull(predictFallback)) {
+                throw e;
+            }
+            log.warn("[ByteplusSDK][Predict] {}, use fallback", e.getMessage());
+            return predictFallback.apply(request, scene);
+        }
         log.debug("[ByteplusSDK][Predict] rsp:\n{}", response);
         return response;
     }
@@ -135,4 +196,102 @@ public class ByteairClientImpl extends CommonClientImpl implements ByteairClient
         log.debug("[ByteplusSDK][Callback] rsp:\n{}", response);
         return response;
     }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                           Option... opts) {
+        if (Objects.nonNull(dataList) && dataList.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (dataList.size() > MAX_IMPORT_ITEM_COUNT) {
+                return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = byteairURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, dataList, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeRawDataAsync(List<byte[]> jsonRows, String topic,
+                                                              Option... opts) {
+        try {
+            checkJsonRows(jsonRows);
+        } catch (BizException e) {
+            return failedFuture(e);
+        }
+        if (jsonRows.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (jsonRows.size() > MAX_IMPORT_ITEM_COUNT) {
+                return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = byteairURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doRawJsonRequestAsync(url, jsonRows, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeRawDataAsync(byte[] jsonArray, String topic,
+                                                              Option... opts) {
+        try {
+            checkJsonArray(jsonArray);
+        } catch (BizException e) {
+            return failedFuture(e);
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = byteairURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doRawJsonRequestAsync(url, jsonArray, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                                Option... opts) {
+        if (Objects.nonNull(dataList) && dataList.size() > MAX_IMPORT_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+        }
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = byteairURL.getImportDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, dataList, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importDataAsync(Iterator<Map<String, Object>> dataIterator,
+                                                                String topic, Option... opts) {
+        Iterator<Map<String, Object>> rows = atMost(dataIterator, MAX_IMPORT_ITEM_COUNT, ERR_MSG_TOO_MANY_ITEMS);
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = byteairURL.getImportDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, rows, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<DoneResponse> doneAsync(List<LocalDate> dateList, String topic, Option... opts) {
+        DoneRequest request = buildDoneRequest(dateList);
+        Parser<DoneResponse> parser = DoneResponse.parser();
+        String url = byteairURL.getDoneUrlFormat().replace("{}", topic);
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<PredictResponse> predictAsync(PredictRequest request, String scene, Option... opts) {
+        String url = byteairURL.getPredictUrlFormat().replace("{}", scene);
+        Parser<PredictResponse> parser = PredictResponse.parser();
+        CompletableFuture<PredictResponse> future = doPredictAsync(url, scene, request, opts,
+                () -> httpCaller.doPbRequestHedgedAsync(url, request, parser, opts));
+        if (Objects.isNull(predictFallback)) {
+            return future;
+        }
+        return withBreakerFallback(future, () -> predictFallback.apply(request, scene));
+    }
+
+    @Override
+    public CompletableFuture<PredictResponse> predictAsync(PredictRequest request, Option... opts) {
+        return predictAsync(request, DEFAULT_PREDICT_SCENE, opts);
+    }
+
+    @Override
+    public CompletableFuture<CallbackResponse> callbackAsync(CallbackRequest request, Option... opts) {
+        Parser<CallbackResponse> parser = CallbackResponse.parser();
+        String url = byteairURL.getCallbackUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
 }
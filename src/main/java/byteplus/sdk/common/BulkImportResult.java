@@ -0,0 +1,65 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static byteplus.sdk.core.Constant.STATUS_CODE_SUCCESS;
+
+// The aggregate result of a bulk import, it covers the operations
+// of every chunk, in the order the chunks were cut.
+public class BulkImportResult {
+
+    @Getter
+    @AllArgsConstructor
+    public static class ChunkFailure {
+        private final int chunkIndex;
+
+        private final int rowCount;
+
+        private final String message;
+    }
+
+    private final Map<Integer, String> operationNames = new ConcurrentSkipListMap<>();
+
+    private final Map<Integer, ChunkFailure> failures = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong acceptedRowCount = new AtomicLong();
+
+    void addResponse(int chunkIndex, int rowCount, OperationResponse response) {
+        if (response.getStatus().getCode() != STATUS_CODE_SUCCESS) {
+            addFailure(chunkIndex, rowCount, response.getStatus().getMessage());
+            return;
+        }
+        operationNames.put(chunkIndex, response.getOperation().getName());
+        acceptedRowCount.addAndGet(rowCount);
+    }
+
+    void addFailure(int chunkIndex, int rowCount, String message) {
+        failures.put(chunkIndex, new ChunkFailure(chunkIndex, rowCount, message));
+    }
+
+    // Names of the operations returned by the accepted chunks,
+    // poll them with `GetOperation` to know the import status
+    public List<String> getOperationNames() {
+        return new ArrayList<>(operationNames.values());
+    }
+
+    public List<ChunkFailure> getFailures() {
+        return new ArrayList<>(failures.values());
+    }
+
+    public long getAcceptedRowCount() {
+        return acceptedRowCount.get();
+    }
+
+    public boolean isAllAccepted() {
+        return failures.isEmpty();
+    }
+}
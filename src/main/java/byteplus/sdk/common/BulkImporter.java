@@ -0,0 +1,142 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import byteplus.sdk.core.BizException;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static byteplus.sdk.core.Constant.MAX_IMPORT_ITEM_COUNT;
+
+// Cuts an arbitrarily large stream of rows into chunks of at most
+// MAX_IMPORT_ITEM_COUNT rows, and imports the chunks with bounded parallelism.
+// Rows are pulled from the iterator on the calling thread only when a chunk
+// slot is free, so at most `parallelism` + 1 chunks are held in memory.
+@Slf4j
+public class BulkImporter<T> {
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Max rows in one import request, can not exceed MAX_IMPORT_ITEM_COUNT
+        private int chunkSize = MAX_IMPORT_ITEM_COUNT;
+
+        // Max concurrent import calls
+        private int parallelism = 4;
+    }
+
+    // Sends one chunk of rows as a single import request
+    public interface ChunkImporter<T> {
+        CompletableFuture<OperationResponse> importChunk(List<T> chunk);
+    }
+
+    private final ChunkImporter<T> chunkImporter;
+
+    private final int chunkSize;
+
+    private final int parallelism;
+
+    public BulkImporter(ChunkImporter<T> chunkImporter, Param param) {
+        if (param.chunkSize <= 0 || param.chunkSize > MAX_IMPORT_ITEM_COUNT) {
+            throw new RuntimeException("Chunk size should be in (0, " + MAX_IMPORT_ITEM_COUNT + "]");
+        }
+        if (param.parallelism <= 0) {
+            throw new RuntimeException("Parallelism should be positive");
+        }
+        this.chunkImporter = chunkImporter;
+        this.chunkSize = param.chunkSize;
+        this.parallelism = param.parallelism;
+    }
+
+    public BulkImportResult importAll(Stream<T> rows) throws BizException {
+        return importAll(rows.iterator(), null);
+    }
+
+    public BulkImportResult importAll(Iterator<T> rows) throws BizException {
+        return importAll(rows, null);
+    }
+
+    // Imports all the rows and blocks until every chunk is answered.
+    // A failed chunk does not stop the others, it is recorded in the result.
+    // A failure of the row iterator, e.g. a broken row of a file, stops
+    // cutting chunks, it is recorded as the failure of the chunk being cut,
+    // and the result of the chunks already sent is returned.
+    // `endImporter` is optional, it is called once after all the chunks are
+    // accepted, and its operation is recorded after the chunks' ones.
+    public BulkImportResult importAll(Iterator<T> rows,
+                                      Supplier<CompletableFuture<OperationResponse>> endImporter) throws BizException {
+        BulkImportResult result = new BulkImportResult();
+        Semaphore permits = new Semaphore(parallelism);
+        int chunkIndex = 0;
+        try {
+            while (true) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                try {
+                    while (chunk.size() < chunkSize && rows.hasNext()) {
+                        chunk.add(rows.next());
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("[ByteplusSDK][BulkImport] read rows of chunk:{} fail, err:{}",
+                            chunkIndex, e.getMessage());
+                    result.addFailure(chunkIndex, chunk.size(), "read rows fail, " + e.getMessage());
+                    break;
+                }
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                permits.acquire();
+                submit(chunkIndex++, chunk, result, permits, () -> chunkImporter.importChunk(chunk));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException("interrupted while importing, submitted chunks:" + chunkIndex);
+        } finally {
+            // wait for the in-flight chunks
+            permits.acquireUninterruptibly(parallelism);
+        }
+        if (Objects.nonNull(endImporter) && result.isAllAccepted()) {
+            // all the permits are held here, keep one for the end request
+            permits.release(parallelism - 1);
+            submit(chunkIndex, Collections.emptyList(), result, permits, endImporter);
+            permits.acquireUninterruptibly(parallelism);
+        }
+        return result;
+    }
+
+    private void submit(int chunkIndex,
+                        List<T> chunk,
+                        BulkImportResult result,
+                        Semaphore permits,
+                        Supplier<CompletableFuture<OperationResponse>> importer) {
+        CompletableFuture<OperationResponse> future;
+        try {
+            future = importer.get();
+        } catch (Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        int rowCount = chunk.size();
+        future.whenComplete((response, e) -> {
+            try {
+                if (Objects.nonNull(e)) {
+                    log.warn("[ByteplusSDK][BulkImport] import chunk:{} fail, err:{}", chunkIndex, e.getMessage());
+                    result.addFailure(chunkIndex, rowCount, String.valueOf(e.getMessage()));
+                    return;
+                }
+                result.addResponse(chunkIndex, rowCount, response);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
@@ -5,6 +5,8 @@ import byteplus.sdk.core.BizException;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface CommonClient {
     // GetOperation
     //
@@ -18,5 +20,20 @@ public interface CommonClient {
     ListOperationsResponse listOperations(ListOperationsRequest request,
                                           Option... opts) throws NetException, BizException;
 
+    // GetOperationAsync
+    //
+    // Asynchronous version of `GetOperation`, the returned future is completed
+    // exceptionally with NetException or BizException when the call fails.
+    CompletableFuture<OperationResponse> getOperationAsync(GetOperationRequest request, Option... opts);
+
+    // ListOperationsAsync
+    //
+    // Asynchronous version of `ListOperations`.
+    CompletableFuture<ListOperationsResponse> listOperationsAsync(ListOperationsRequest request, Option... opts);
+
+    // Whether at least one host of the client answers pings,
+    // always true when the client has only one host
+    boolean hasAvailableHost();
+
     void release();
 }
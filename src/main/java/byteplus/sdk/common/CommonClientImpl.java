@@ -2,15 +2,33 @@ package byteplus.sdk.common;
 
 import byteplus.sdk.common.protocol.ByteplusCommon.*;
 import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.CircuitBreakerOpenException;
 import byteplus.sdk.core.Context;
 import byteplus.sdk.core.HostAvailabler;
 import byteplus.sdk.core.HttpCaller;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
+import byteplus.sdk.core.PredictCache;
+import byteplus.sdk.core.RequestKey;
 import byteplus.sdk.core.URLCenter;
+import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 @Slf4j
 public abstract class CommonClientImpl implements CommonClient, URLCenter {
 
@@ -22,11 +40,14 @@ public abstract class CommonClientImpl implements CommonClient, URLCenter {
 
     private final HostAvailabler hostAvailabler;
 
+    // Predict calls in flight, only used when predict calls are coalesced
+    private final Map<RequestKey, CompletableFuture<Message>> inflightPredicts = new ConcurrentHashMap<>();
+
     protected CommonClientImpl(Context.Param param) {
         this.context = new Context(param);
-        this.httpCaller = new HttpCaller(context);
         this.commonURL = new CommonURL(context);
         this.hostAvailabler = new HostAvailabler(context, this);
+        this.httpCaller = new HttpCaller(context, hostAvailabler);
     }
 
     @Override
@@ -37,6 +58,11 @@ public abstract class CommonClientImpl implements CommonClient, URLCenter {
 
     public abstract void doRefresh(String host);
 
+    @Override
+    public boolean hasAvailableHost() {
+        return hostAvailabler.hasAvailableHost();
+    }
+
     public final void release() {
         this.hostAvailabler.shutdown();
         doRelease();
@@ -65,4 +91,230 @@ public abstract class CommonClientImpl implements CommonClient, URLCenter {
         log.debug("[ByteplusSDK][ListOperations] rsp:\n{}", response);
         return response;
     }
+
+    @Override
+    public CompletableFuture<OperationResponse> getOperationAsync(GetOperationRequest request, Option... opts) {
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = commonURL.getGetOperationUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<ListOperationsResponse> listOperationsAsync(ListOperationsRequest request, Option... opts) {
+        Parser<ListOperationsResponse> parser = ListOperationsResponse.parser();
+        String url = commonURL.getListOperationsUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    // A call which throws the exceptions of the sdk
+    protected interface SdkCall<T> {
+        T call() throws NetException, BizException;
+    }
+
+    // Answers the predict call from the predict cache if possible, otherwise
+    // makes the call, or joins the same call in flight, and caches its response
+    protected <T extends Message> T doPredict(String url, String scene, Message request, Option[] opts,
+                                              SdkCall<T> call) throws NetException, BizException {
+        PredictCache predictCache = context.getPredictCache();
+        RequestKey cacheKey = null;
+        if (Objects.nonNull(predictCache) && predictCache.isCached(scene)) {
+            cacheKey = predictCache.keyOf(url, request, opts);
+            T cached = predictCache.get(cacheKey);
+            if (Objects.nonNull(cached)) {
+                log.debug("[ByteplusSDK][Predict] hit cache, scene:{}", scene);
+                return cached;
+            }
+        }
+        T response = context.isCoalescePredict() ?
+                coalesce(RequestKey.of(url, request, opts), opts, call) : call.call();
+        if (Objects.nonNull(cacheKey)) {
+            predictCache.put(cacheKey, scene, response);
+        }
+        return response;
+    }
+
+    protected <T extends Message> CompletableFuture<T> doPredictAsync(String url, String scene, Message request,
+                                                                    Option[] opts,
+                                                                    Supplier<CompletableFuture<T>> call) {
+        PredictCache predictCache = context.getPredictCache();
+        RequestKey cacheKey = null;
+        if (Objects.nonNull(predictCache) && predictCache.isCached(scene)) {
+            cacheKey = predictCache.keyOf(url, request, opts);
+            T cached = predictCache.get(cacheKey);
+            if (Objects.nonNull(cached)) {
+                log.debug("[ByteplusSDK][Predict] hit cache, scene:{}", scene);
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<T> future = context.isCoalescePredict() ?
+                coalesceAsync(RequestKey.of(url, request, opts), opts, call) : call.get();
+        if (Objects.nonNull(cacheKey)) {
+            RequestKey key = cacheKey;
+            future.thenAccept(response -> predictCache.put(key, scene, response));
+        }
+        return future;
+    }
+
+    // Makes the call, or waits for the result of the same call made by another thread,
+    // no longer than the timeout or the deadline in the options of this call
+    @SuppressWarnings("unchecked")
+    private <T extends Message> T coalesce(RequestKey key, Option[] opts,
+                                           SdkCall<T> call) throws NetException, BizException {
+        CompletableFuture<Message> shared = new CompletableFuture<>();
+        CompletableFuture<Message> inflight = inflightPredicts.putIfAbsent(key, shared);
+        if (Objects.isNull(inflight)) {
+            try {
+                T response = call.call();
+                inflightPredicts.remove(key, shared);
+                shared.complete(response);
+                return response;
+            } catch (Throwable e) {
+                inflightPredicts.remove(key, shared);
+                shared.completeExceptionally(e);
+                throw e;
+            }
+        }
+        log.debug("[ByteplusSDK][Predict] join the same call in flight");
+        Duration maxWait = HttpCaller.maxWaitOf(opts);
+        try {
+            if (Objects.isNull(maxWait)) {
+                return (T) inflight.get();
+            }
+            return (T) inflight.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new NetException("timeout waiting for the same predict call in flight");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException("interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetException) {
+                throw (NetException) cause;
+            }
+            if (cause instanceof BizException) {
+                throw (BizException) cause;
+            }
+            throw new BizException(cause.toString());
+        }
+    }
+
+    // Cancelling the returned future does not cancel the shared call, which other callers may wait for
+    @SuppressWarnings("unchecked")
+    private <T extends Message> CompletableFuture<T> coalesceAsync(RequestKey key, Option[] opts,
+                                                                  Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<Message> shared = new CompletableFuture<>();
+        CompletableFuture<Message> inflight = inflightPredicts.putIfAbsent(key, shared);
+        boolean joined = Objects.nonNull(inflight);
+        if (!joined) {
+            inflight = shared;
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (Throwable e) {
+                future = failedFuture(e);
+            }
+            future.whenComplete((response, e) -> {
+                inflightPredicts.remove(key, shared);
+                if (Objects.isNull(e)) {
+                    shared.complete(response);
+                } else {
+                    shared.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                }
+            });
+        } else {
+            log.debug("[ByteplusSDK][Predict] join the same call in flight");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        inflight.whenComplete((response, e) -> {
+            if (Objects.isNull(e)) {
+                result.complete((T) response);
+            } else {
+                result.completeExceptionally(e);
+            }
+        });
+        // the call itself is bounded by the options of the caller making it,
+        // a caller joining it waits no longer than its own timeout or deadline
+        Duration maxWait = joined ? HttpCaller.maxWaitOf(opts) : null;
+        if (Objects.nonNull(maxWait)) {
+            HttpCaller.failAfter(result, maxWait, "timeout waiting for the same predict call in flight");
+        }
+        return result;
+    }
+
+    // Completes with the fallback value instead when the future fails because of
+    // an open circuit breaker. Cancelling the returned future cancels the origin
+    protected static <T> CompletableFuture<T> withBreakerFallback(CompletableFuture<T> future,
+                                                                  Supplier<T> fallback) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> {
+            if (Objects.isNull(e)) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof CircuitBreakerOpenException) {
+                log.warn("[ByteplusSDK] {}, use fallback", cause.getMessage());
+                try {
+                    result.complete(fallback.get());
+                } catch (Throwable fallbackErr) {
+                    result.completeExceptionally(fallbackErr);
+                }
+                return;
+            }
+            result.completeExceptionally(cause);
+        });
+        result.whenComplete((value, e) -> {
+            if (e instanceof CancellationException) {
+                future.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    // Fails with `message` when more than `maxCount` rows are pulled from the returned iterator
+    protected static <T> Iterator<T> atMost(Iterator<T> rows, int maxCount, String message) {
+        return new Iterator<T>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (++count > maxCount) {
+                    throw new IllegalStateException(message);
+                }
+                return rows.next();
+            }
+        };
+    }
+
+    // Raw JSON rows are copied into the body as is, a missing row
+    // would break the body instead of failing the call
+    protected static void checkJsonRows(List<byte[]> jsonRows) throws BizException {
+        if (Objects.isNull(jsonRows)) {
+            throw new BizException("json rows is null");
+        }
+        for (int i = 0; i < jsonRows.size(); i++) {
+            byte[] row = jsonRows.get(i);
+            if (Objects.isNull(row) || row.length == 0) {
+                throw new BizException("json row " + i + " is empty");
+            }
+        }
+    }
+
+    protected static void checkJsonArray(byte[] jsonArray) throws BizException {
+        if (Objects.isNull(jsonArray) || jsonArray.length == 0) {
+            throw new BizException("json array is empty");
+        }
+    }
+
+    // Java 8 has no CompletableFuture.failedFuture
+    protected static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
 }
@@ -0,0 +1,83 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.Option;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Imports an arbitrarily large stream of data rows into one topic,
+// every chunk is sent with the same "Content-Date".
+// If the options carry `Option.withDataEnd(true)`, the chunks are sent
+// without it, and an empty import carrying it is sent after all the chunks
+// are accepted, so the server does not take the date as complete early.
+public class DataBulkImporter {
+
+    // Sends rows as a single import request, e.g. `GeneralClient::importDataAsync`
+    public interface DataImporter {
+        CompletableFuture<OperationResponse> importDataAsync(List<Map<String, Object>> dataList,
+                                                             String topic,
+                                                             Option... opts);
+    }
+
+    private final DataImporter dataImporter;
+
+    private final BulkImporter.Param param;
+
+    public DataBulkImporter(DataImporter dataImporter, BulkImporter.Param param) {
+        this.dataImporter = dataImporter;
+        this.param = param;
+    }
+
+    public BulkImportResult importData(Iterator<Map<String, Object>> dataIterator,
+                                       String topic,
+                                       LocalDate date,
+                                       Option... opts) throws BizException {
+        // every chunk is a request of its own, with its own request id
+        Option[] requestOpts = Option.withoutRequestId(opts);
+        Option[] chunkOpts = Arrays.copyOf(requestOpts, requestOpts.length + 2);
+        chunkOpts[requestOpts.length] = Option.withDataDate(date);
+        chunkOpts[requestOpts.length + 1] = Option.withDataEnd(null);
+        BulkImporter<Map<String, Object>> importer = new BulkImporter<>(
+                chunk -> dataImporter.importDataAsync(chunk, topic, chunkOpts), param);
+        if (!Option.isDataEnd(opts)) {
+            return importer.importAll(dataIterator);
+        }
+        Option[] endOpts = Arrays.copyOf(chunkOpts, chunkOpts.length);
+        endOpts[chunkOpts.length - 1] = Option.withDataEnd(true);
+        return importer.importAll(dataIterator,
+                () -> dataImporter.importDataAsync(Collections.emptyList(), topic, endOpts));
+    }
+
+    // Imports the rows of a NDJSON file, one JSON object per line, see FileRows
+    public BulkImportResult importNdjson(Path file,
+                                         String topic,
+                                         LocalDate date,
+                                         Option... opts) throws BizException {
+        try (FileRows.RowIterator<Map<String, Object>> rows = FileRows.ndjson(file)) {
+            return importData(rows, topic, date, opts);
+        } catch (UncheckedIOException e) {
+            throw new BizException(e.getCause().getMessage());
+        }
+    }
+
+    // Imports the rows of a CSV file with a header line, all the values are strings, see FileRows
+    public BulkImportResult importCsv(Path file,
+                                      String topic,
+                                      LocalDate date,
+                                      Option... opts) throws BizException {
+        try (FileRows.RowIterator<Map<String, Object>> rows = FileRows.csv(file)) {
+            return importData(rows, topic, date, opts);
+        } catch (UncheckedIOException e) {
+            throw new BizException(e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.core.BizException;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Reads the rows of a file one by one, so a file of any size can be
+// imported with BulkImporter while holding only a few chunks in memory.
+// Files are read through a FileChannel in blocks of READ_BUFFER_BYTES.
+//
+// Supported formats are:
+//   - length-delimited protobuf, as written by `MessageLite.writeDelimitedTo`
+//   - NDJSON, one JSON object per line
+//   - CSV with a header line, fields may be quoted by '"' as RFC 4180,
+//     all the values are strings
+// Blank lines of NDJSON and CSV files are skipped. A broken row stops the
+// iteration with UncheckedIOException, which tells the line number.
+public final class FileRows {
+    private final static int READ_BUFFER_BYTES = 1024 * 1024;
+
+    // Iterates the rows of a file, closing it closes the file
+    public interface RowIterator<T> extends Iterator<T>, AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private FileRows() {
+    }
+
+    public static <T extends Message> RowIterator<T> delimitedProtobuf(Path file, Parser<T> parser) throws BizException {
+        FileChannel channel = open(file);
+        InputStream input = new BufferedInputStream(Channels.newInputStream(channel), READ_BUFFER_BYTES);
+        return new AbstractRowIterator<T>(channel) {
+            private long rowNumber;
+
+            @Override
+            protected T readNext() throws IOException {
+                rowNumber++;
+                try {
+                    // null at the end of the file
+                    return parser.parseDelimitedFrom(input);
+                } catch (IOException e) {
+                    throw new IOException("broken protobuf, file:" + file + ", row:" + rowNumber + ", err:" + e.getMessage());
+                }
+            }
+        };
+    }
+
+    public static RowIterator<Map<String, Object>> ndjson(Path file) throws BizException {
+        LineReader reader = new LineReader(open(file), false);
+        return new AbstractRowIterator<Map<String, Object>>(reader.channel) {
+            @Override
+            protected Map<String, Object> readNext() throws IOException {
+                while (reader.next()) {
+                    if (reader.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        return JSON.parseObject(reader.lineString());
+                    } catch (JSONException | ClassCastException e) {
+                        throw new IOException("broken json, file:" + file + ", line:" + reader.lineNumber
+                                + ", err:" + e.getMessage());
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    public static RowIterator<Map<String, Object>> csv(Path file) throws BizException {
+        LineReader reader = new LineReader(open(file), true);
+        return new AbstractRowIterator<Map<String, Object>>(reader.channel) {
+            private List<String> header;
+
+            @Override
+            protected Map<String, Object> readNext() throws IOException {
+                while (reader.next()) {
+                    if (reader.isBlank()) {
+                        continue;
+                    }
+                    List<String> fields = parseCsvLine(reader.lineString());
+                    if (Objects.isNull(fields)) {
+                        throw new IOException("unclosed quote, file:" + file + ", line:" + reader.lineNumber);
+                    }
+                    if (Objects.isNull(header)) {
+                        header = fields;
+                        continue;
+                    }
+                    if (fields.size() != header.size()) {
+                        throw new IOException("expect " + header.size() + " fields but got " + fields.size()
+                                + ", file:" + file + ", line:" + reader.lineNumber);
+                    }
+                    Map<String, Object> row = new HashMap<>(header.size() * 4 / 3 + 1);
+                    for (int i = 0; i < fields.size(); i++) {
+                        row.put(header.get(i), fields.get(i));
+                    }
+                    return row;
+                }
+                return null;
+            }
+        };
+    }
+
+    private static FileChannel open(Path file) throws BizException {
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new BizException("open file fail, file:" + file + ", err:" + e.getMessage());
+        }
+    }
+
+    // Returns the fields of a csv line, null if a quote is not closed
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    // escaped quote
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (inQuotes) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private abstract static class AbstractRowIterator<T> implements RowIterator<T> {
+        private final FileChannel channel;
+
+        private T next;
+
+        private boolean finished;
+
+        private AbstractRowIterator(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Returns null at the end of the file
+        protected abstract T readNext() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (Objects.isNull(next) && !finished) {
+                try {
+                    next = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                finished = Objects.isNull(next);
+            }
+            return !finished;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Cuts a file into lines by '\n', a trailing '\r' is dropped.
+    // Scanning bytes is safe for UTF-8, whose multi-byte characters never contain '\n'
+    private static class LineReader {
+        private final FileChannel channel;
+
+        // Whether '\n' between double quotes belongs to the line, as in csv
+        private final boolean quoted;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+        private byte[] line = new byte[1024];
+
+        private int lineLength;
+
+        private long lineNumber;
+
+        private LineReader(FileChannel channel, boolean quoted) {
+            this.channel = channel;
+            this.quoted = quoted;
+            buffer.flip();
+        }
+
+        // Reads the next line, returns false at the end of the file
+        private boolean next() throws IOException {
+            lineLength = 0;
+            boolean inQuotes = false;
+            boolean read = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int count = channel.read(buffer);
+                    buffer.flip();
+                    if (count < 0) {
+                        if (read) {
+                            // the last line has no '\n'
+                            endLine();
+                        }
+                        return read;
+                    }
+                    continue;
+                }
+                read = true;
+                byte[] array = buffer.array();
+                int start = buffer.position();
+                int end = buffer.limit();
+                int i = start;
+                while (i < end) {
+                    byte b = array[i];
+                    if (b == '\n' && !inQuotes) {
+                        break;
+                    }
+                    if (quoted && b == '"') {
+                        inQuotes = !inQuotes;
+                    }
+                    i++;
+                }
+                append(array, start, i - start);
+                if (i < end) {
+                    buffer.position(i + 1);
+                    endLine();
+                    return true;
+                }
+                buffer.position(end);
+            }
+        }
+
+        private void endLine() {
+            if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                lineLength--;
+            }
+            lineNumber++;
+        }
+
+        private void append(byte[] bytes, int offset, int length) {
+            if (lineLength + length > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+            }
+            System.arraycopy(bytes, offset, line, lineLength, length);
+            lineLength += length;
+        }
+
+        private boolean isBlank() {
+            for (int i = 0; i < lineLength; i++) {
+                if (!Character.isWhitespace(line[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String lineString() {
+            return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+        }
+    }
+}
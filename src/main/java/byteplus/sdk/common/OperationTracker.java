@@ -0,0 +1,264 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.common.protocol.ByteplusCommon.GetOperationRequest;
+import byteplus.sdk.common.protocol.ByteplusCommon.ListOperationsRequest;
+import byteplus.sdk.common.protocol.ByteplusCommon.ListOperationsResponse;
+import byteplus.sdk.common.protocol.ByteplusCommon.Operation;
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.Option;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static byteplus.sdk.core.Constant.STATUS_CODE_OPERATION_LOSS;
+import static byteplus.sdk.core.Constant.STATUS_CODE_SUCCESS;
+
+// Polls many long running operations at once, and completes the future
+// of an operation when it is done.
+// When enough operations are due in one round, they are refreshed by paging
+// through `ListOperations` with filter "done=true" instead of one `GetOperation`
+// call for each. Due operations the scan misses still get a `GetOperation`
+// when the scan stopped at `maxListPages`, as they may be on the pages left,
+// or when their interval reached `maxInterval`, so the operations lost by the
+// server, which are never listed, are found as well.
+// An operation that is still running after a round polls less frequently
+// next time, its interval grows exponentially up to `maxInterval`.
+@Slf4j
+public class OperationTracker implements AutoCloseable {
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // The first poll interval of a newly tracked operation
+        private Duration initialInterval = Duration.ofSeconds(1);
+
+        // The poll interval upper bound
+        private Duration maxInterval = Duration.ofSeconds(60);
+
+        // The growth factor of the poll interval after every unfinished poll
+        private double backoffMultiplier = 2.0;
+
+        // Use `ListOperations` when at least this many operations are due in one round,
+        // less than or equal to 0 means never use `ListOperations`
+        private int listThreshold = 3;
+
+        // Optional, extra filter of `ListOperations` to narrow the pages to scan,
+        // e.g. "date=2021-06-10 and worksOn=ImportProducts"
+        private String listFilter;
+
+        // Page size of `ListOperations`
+        private int listPageSize = 100;
+
+        // Max pages scanned in one round
+        private int maxListPages = 10;
+    }
+
+    private static final Duration TICK_INTERVAL = Duration.ofMillis(200);
+
+    private final CommonClient client;
+
+    private final Option[] opts;
+
+    private final Param param;
+
+    private final String listFilter;
+
+    private final Map<String, Pending> pendingMap = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService scheduler;
+
+    public OperationTracker(CommonClient client, Param param, Option... opts) {
+        this.client = client;
+        this.param = param;
+        this.opts = opts;
+        if (Objects.isNull(param.listFilter) || param.listFilter.isEmpty()) {
+            this.listFilter = "done=true";
+        } else {
+            this.listFilter = param.listFilter + " and done=true";
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "byteplus-operation-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll,
+                TICK_INTERVAL.toMillis(), TICK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public OperationTracker(CommonClient client, Option... opts) {
+        this(client, new Param(), opts);
+    }
+
+    // Starts tracking an operation, the returned future is completed when
+    // the operation is done, or completed exceptionally with BizException
+    // when the server lost the operation.
+    // Cancelling the future stops tracking it.
+    public CompletableFuture<Operation> track(String operationName) {
+        return pendingMap.computeIfAbsent(operationName, name -> new Pending(name, param.initialInterval)).future;
+    }
+
+    public CompletableFuture<List<Operation>> trackAll(List<String> operationNames) {
+        List<CompletableFuture<Operation>> futures = operationNames.stream()
+                .map(this::track)
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    // Count of operations which are not done yet
+    public int pendingCount() {
+        return pendingMap.size();
+    }
+
+    // Stops polling, the futures of unfinished operations are left uncompleted.
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    private void poll() {
+        pendingMap.values().removeIf(pending -> pending.future.isDone());
+        if (!polling.compareAndSet(false, true)) {
+            // last round is still running
+            return;
+        }
+        long now = System.nanoTime();
+        List<Pending> dueList = pendingMap.values().stream()
+                .filter(pending -> pending.nextPollNanos <= now)
+                .collect(Collectors.toList());
+        if (dueList.isEmpty()) {
+            polling.set(false);
+            return;
+        }
+        CompletableFuture<Void> round;
+        if (param.listThreshold > 0 && dueList.size() >= param.listThreshold) {
+            round = listDue(dueList, "", 0).thenCompose(this::getDue);
+        } else {
+            round = getDue(dueList);
+        }
+        round.whenCompleteAsync((ignored, e) -> {
+            if (Objects.nonNull(e)) {
+                log.warn("[ByteplusSDK][OperationTracker] poll operations fail, err:{}", e.getMessage());
+            }
+            dueList.forEach(this::backoff);
+            polling.set(false);
+        }, scheduler);
+    }
+
+    // Completes with the due operations which still need a `GetOperation`
+    private CompletableFuture<List<Pending>> listDue(List<Pending> dueList, String pageToken, int pageIndex) {
+        ListOperationsRequest request = ListOperationsRequest.newBuilder()
+                .setFilter(listFilter)
+                .setPageSize(param.listPageSize)
+                .setPageToken(pageToken)
+                .build();
+        return client.listOperationsAsync(request, opts).thenCompose(response -> {
+            if (response.getStatus().getCode() != STATUS_CODE_SUCCESS) {
+                log.warn("[ByteplusSDK][OperationTracker] list operations fail, fallback to get, rsp:{}",
+                        response.getStatus());
+                return getDue(dueList).thenApply(ignored -> Collections.emptyList());
+            }
+            response.getOperationsList().forEach(this::complete);
+            boolean allDone = dueList.stream().allMatch(pending -> pending.future.isDone());
+            if (allDone || !hasNextPage(response)) {
+                long maxNanos = param.maxInterval.toNanos();
+                return CompletableFuture.completedFuture(dueList.stream()
+                        .filter(pending -> pending.intervalNanos >= maxNanos)
+                        .collect(Collectors.toList()));
+            }
+            if (pageIndex + 1 >= param.maxListPages) {
+                return CompletableFuture.completedFuture(dueList);
+            }
+            return listDue(dueList, response.getNextPageToken(), pageIndex + 1);
+        });
+    }
+
+    private boolean hasNextPage(ListOperationsResponse response) {
+        return !response.getNextPageToken().isEmpty();
+    }
+
+    private CompletableFuture<Void> getDue(List<Pending> dueList) {
+        CompletableFuture<?>[] futures = dueList.stream()
+                .filter(pending -> !pending.future.isDone())
+                .map(pending -> {
+                    GetOperationRequest request = GetOperationRequest.newBuilder().setName(pending.name).build();
+                    return client.getOperationAsync(request, opts)
+                            .thenAccept(response -> onGetResponse(pending, response))
+                            .exceptionally(e -> {
+                                log.warn("[ByteplusSDK][OperationTracker] get operation fail, name:{} err:{}",
+                                        pending.name, e.getMessage());
+                                return null;
+                            });
+                })
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    private void onGetResponse(Pending pending, OperationResponse response) {
+        int code = response.getStatus().getCode();
+        if (code == STATUS_CODE_OPERATION_LOSS) {
+            pending.future.completeExceptionally(
+                    new BizException("operation is lost, name:" + pending.name));
+            return;
+        }
+        if (code != STATUS_CODE_SUCCESS) {
+            log.warn("[ByteplusSDK][OperationTracker] get operation fail, name:{} rsp:{}",
+                    pending.name, response.getStatus());
+            return;
+        }
+        complete(response.getOperation());
+    }
+
+    private void complete(Operation operation) {
+        if (!operation.getDone()) {
+            return;
+        }
+        Pending pending = pendingMap.get(operation.getName());
+        if (Objects.nonNull(pending)) {
+            pending.future.complete(operation);
+        }
+    }
+
+    private void backoff(Pending pending) {
+        if (pending.future.isDone()) {
+            return;
+        }
+        long maxNanos = param.maxInterval.toNanos();
+        pending.intervalNanos = Math.min(maxNanos, (long) (pending.intervalNanos * param.backoffMultiplier));
+        pending.nextPollNanos = System.nanoTime() + pending.intervalNanos;
+    }
+
+    private static class Pending {
+        private final String name;
+
+        private final CompletableFuture<Operation> future = new CompletableFuture<>();
+
+        // Only updated on the scheduler thread
+        private volatile long intervalNanos;
+
+        private volatile long nextPollNanos;
+
+        private Pending(String name, Duration initialInterval) {
+            this.name = name;
+            this.intervalNanos = initialInterval.toNanos();
+            this.nextPollNanos = System.nanoTime() + intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package byteplus.sdk.common;
+
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.NetException;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+import static byteplus.sdk.core.Constant.MAX_WRITE_ITEM_COUNT;
+import static byteplus.sdk.core.Constant.STATUS_CODE_IDEMPOTENT;
+import static byteplus.sdk.core.Constant.STATUS_CODE_SUCCESS;
+import static byteplus.sdk.core.Constant.STATUS_CODE_TOO_MANY_REQUEST;
+
+// A write-ahead log of records on local disk, drained to the server in the background.
+//
+// Records are appended to memory-mapped segment files of `segmentBytes`, each
+// one as [length][crc32][bytes]. A background thread reads them in batches of
+// at most `batchSize` records and writes each batch to the server while the
+// client has an available host. A batch is forgotten once the server answers
+// it, and retried with backoff when the call fails or the server is
+// overloaded, so records are written at least once. Every retry of a batch
+// carries the same batch id, see BatchWriter. Drained segments are
+// deleted, and the drained position is kept in a checkpoint file, so records
+// left by a closed or crashed process are drained by the next spool opened
+// on the same directory.
+// Appending fails with BizException when the segments would exceed `maxBytes`.
+@Slf4j
+public class WriteSpool implements AutoCloseable {
+    private final static String SEGMENT_SUFFIX = ".seg";
+
+    private final static String CHECKPOINT_FILE = "checkpoint";
+
+    // Returned by writeBatch when the call fails
+    private final static int CALL_FAILED = Integer.MIN_VALUE;
+
+    // length and crc32 of a record
+    private final static int RECORD_HEADER_BYTES = 8;
+
+    // Forces the segments of all the spools to disk
+    private final static ScheduledExecutorService FSYNC_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(WriteSpool::newFsyncThread);
+
+    public enum FsyncPolicy {
+        // Force every appended record to disk before append returns
+        ALWAYS,
+        // Force appended records to disk every `fsyncInterval`
+        INTERVAL,
+        // Leave it to the operating system, records survive a crash of the
+        // process but may be lost when the machine crashes
+        NEVER
+    }
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Required, the directory of the segment files, it can only be used by one spool at a time
+        private Path directory;
+
+        // Size of one segment file, a record can not be larger than it
+        private int segmentBytes = 64 * 1024 * 1024;
+
+        // Max total size of the segment files
+        private long maxBytes = 1024L * 1024 * 1024;
+
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+
+        // Max records written in one request, can not exceed MAX_WRITE_ITEM_COUNT
+        private int batchSize = MAX_WRITE_ITEM_COUNT;
+
+        // Wait before retrying a failed batch, doubled on every failure in a row
+        private Duration retryInterval = Duration.ofSeconds(1);
+
+        private Duration maxRetryInterval = Duration.ofSeconds(30);
+    }
+
+    // Writes a batch of records to the server
+    public interface BatchWriter {
+        // Returns the status code of the response.
+        // The batch is retried later if this throws or the code is
+        // STATUS_CODE_TOO_MANY_REQUEST or a server error, otherwise it is done.
+        // `batchId` is the same for every retry of the batch and differs
+        // between batches, it should be sent as the request id, so a retry of
+        // a batch the server already accepted is answered with STATUS_CODE_IDEMPOTENT
+        int write(List<byte[]> records, String batchId) throws NetException, BizException;
+    }
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final long maxBytes;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final int batchSize;
+
+    private final long retryIntervalMillis;
+
+    private final long maxRetryIntervalMillis;
+
+    private final BatchWriter batchWriter;
+
+    private final BooleanSupplier writable;
+
+    // Prefix of the batch ids, unique to this spool. The batches re-read by
+    // the next spool opened on the directory may end at other records, so
+    // they get new ids instead of the ones of this spool
+    private final String batchIdPrefix = UUID.randomUUID().toString();
+
+    private final FileChannel checkpointChannel;
+
+    // Segments not drained yet ordered by sequence, guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    // The segment records are appended to, guarded by this
+    private Segment writeSegment;
+
+    // guarded by this
+    private int writePosition;
+
+    // Whether records are appended since the last fsync, guarded by this
+    private boolean dirty;
+
+    // The drained position, only accessed by the drainer thread after opened
+    private Segment readSegment;
+
+    private int readPosition;
+
+    private final Thread drainer;
+
+    private final ScheduledFuture<?> fsyncTask;
+
+    private volatile boolean closed;
+
+    public WriteSpool(Param param, BatchWriter batchWriter, BooleanSupplier writable) throws BizException {
+        if (Objects.isNull(param.directory)) {
+            throw new RuntimeException("Spool directory is null");
+        }
+        if (param.segmentBytes <= RECORD_HEADER_BYTES || param.maxBytes < param.segmentBytes) {
+            throw new RuntimeException("Segment bytes should be in (" + RECORD_HEADER_BYTES + ", maxBytes]");
+        }
+        if (param.batchSize <= 0 || param.batchSize > MAX_WRITE_ITEM_COUNT) {
+            throw new RuntimeException("Batch size should be in (0, " + MAX_WRITE_ITEM_COUNT + "]");
+        }
+        this.directory = param.directory;
+        this.segmentBytes = param.segmentBytes;
+        this.maxBytes = param.maxBytes;
+        this.fsyncPolicy = param.fsyncPolicy;
+        this.batchSize = param.batchSize;
+        this.retryIntervalMillis = param.retryInterval.toMillis();
+        this.maxRetryIntervalMillis = Math.max(retryIntervalMillis, param.maxRetryInterval.toMillis());
+        this.batchWriter = batchWriter;
+        this.writable = writable;
+        try {
+            Files.createDirectories(directory);
+            this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new BizException("open spool fail, directory:" + directory + ", err:" + e.getMessage());
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long intervalMillis = param.fsyncInterval.toMillis();
+            this.fsyncTask = FSYNC_SCHEDULER.scheduleWithFixedDelay(
+                    this::fsync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.fsyncTask = null;
+        }
+        this.drainer = new Thread(this::drain, "byteplus-write-spool");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    private static Thread newFsyncThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "byteplus-write-spool-fsync");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // Appends a record, it is on disk (or in the page cache, according
+    // to the fsync policy) when this returns
+    public void append(byte[] record) throws BizException {
+        if (record.length == 0 || record.length > segmentBytes - RECORD_HEADER_BYTES) {
+            throw new BizException("record size should be in (0, " + (segmentBytes - RECORD_HEADER_BYTES) + "]");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        synchronized (this) {
+            if (closed) {
+                throw new BizException("spool is closed");
+            }
+            if (writePosition + RECORD_HEADER_BYTES + record.length > segmentBytes) {
+                rotate();
+            }
+            ByteBuffer buffer = writeSegment.writeBuffer;
+            buffer.position(writePosition + RECORD_HEADER_BYTES);
+            buffer.put(record);
+            buffer.putInt(writePosition + 4, (int) crc.getValue());
+            // the length goes last, a record is complete once its length is written
+            buffer.putInt(writePosition, record.length);
+            writePosition += RECORD_HEADER_BYTES + record.length;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                writeSegment.mapped.force();
+            } else {
+                dirty = true;
+            }
+            notifyAll();
+        }
+    }
+
+    // Stops draining and closes the files, the records not drained yet
+    // stay on disk for the next spool opened on the directory
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        drainer.interrupt();
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Objects.nonNull(fsyncTask)) {
+            fsyncTask.cancel(false);
+        }
+        synchronized (this) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                writeSegment.mapped.force();
+            }
+            for (Segment segment : segments.values()) {
+                closeQuietly(segment.channel);
+            }
+        }
+        closeQuietly(checkpointChannel);
+    }
+
+    // guarded by this
+    private void rotate() throws BizException {
+        if ((long) (segments.size() + 1) * segmentBytes > maxBytes) {
+            throw new BizException("spool is full, directory:" + directory);
+        }
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                writeSegment.mapped.force();
+            }
+            writeSegment = openSegment(writeSegment.sequence + 1);
+        } catch (IOException e) {
+            throw new BizException("create spool segment fail, err:" + e.getMessage());
+        }
+        writePosition = 0;
+        segments.put(writeSegment.sequence, writeSegment);
+    }
+
+    private void fsync() {
+        Segment segment;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            segment = writeSegment;
+        }
+        // appends go on while forcing, a rotated segment is forced by the rotation
+        segment.mapped.force();
+    }
+
+    private void drain() {
+        long retryWaitMillis = retryIntervalMillis;
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        String batchId = null;
+        Segment batchEndSegment = readSegment;
+        int batchEndPosition = readPosition;
+        while (!closed) {
+            try {
+                if (batch.isEmpty()) {
+                    Segment segment = readSegment;
+                    int position = readPosition;
+                    // records are read up to the appended position seen here
+                    Segment writeEndSegment;
+                    int writeEnd;
+                    synchronized (this) {
+                        while (!closed && segment == writeSegment && position >= writePosition) {
+                            wait();
+                        }
+                        writeEndSegment = writeSegment;
+                        writeEnd = writePosition;
+                    }
+                    while (!closed && batch.size() < batchSize) {
+                        int limit = segment == writeEndSegment ? writeEnd : segmentBytes;
+                        int next = nextRecord(segment, position, limit);
+                        if (next > 0 && !isValid(segment, position, next)) {
+                            log.warn("[ByteplusSDK][WriteSpool] skip the broken records at the end of segment:{}",
+                                    segment.sequence);
+                            next = -1;
+                        }
+                        if (next < 0) {
+                            if (segment == writeEndSegment) {
+                                break;
+                            }
+                            segment = nextSegment(segment);
+                            position = 0;
+                            continue;
+                        }
+                        if (batch.isEmpty()) {
+                            batchId = batchIdPrefix + "-" + segment.sequence + "-" + position;
+                        }
+                        batch.add(readRecord(segment, position, next));
+                        position = next;
+                    }
+                    batchEndSegment = segment;
+                    batchEndPosition = position;
+                }
+                if (batch.isEmpty()) {
+                    // only drained segments are passed
+                    commit(batchEndSegment, batchEndPosition);
+                    continue;
+                }
+                if (!writable.getAsBoolean()) {
+                    Thread.sleep(retryIntervalMillis);
+                    continue;
+                }
+                int code = writeBatch(batch, batchId);
+                if (code == CALL_FAILED || code == STATUS_CODE_TOO_MANY_REQUEST || code >= 500) {
+                    log.warn("[ByteplusSDK][WriteSpool] write {} records fail, code:{}, retry in {}ms",
+                            batch.size(), code, retryWaitMillis);
+                    Thread.sleep(retryWaitMillis);
+                    retryWaitMillis = Math.min(retryWaitMillis * 2, maxRetryIntervalMillis);
+                    continue;
+                }
+                if (code != STATUS_CODE_SUCCESS && code != STATUS_CODE_IDEMPOTENT) {
+                    log.warn("[ByteplusSDK][WriteSpool] {} records are rejected, code:{}", batch.size(), code);
+                }
+                retryWaitMillis = retryIntervalMillis;
+                batch.clear();
+                commit(batchEndSegment, batchEndPosition);
+            } catch (InterruptedException e) {
+                // closed
+                return;
+            } catch (Throwable e) {
+                log.error("[ByteplusSDK][WriteSpool] drain find unexpected err, {}", e.getMessage());
+                try {
+                    Thread.sleep(retryWaitMillis);
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the status code of the write, CALL_FAILED if the call fails
+    private int writeBatch(List<byte[]> batch, String batchId) {
+        try {
+            return batchWriter.write(batch, batchId);
+        } catch (NetException | BizException e) {
+            log.warn("[ByteplusSDK][WriteSpool] write {} records fail, err:{}", batch.size(), e.getMessage());
+            return CALL_FAILED;
+        }
+    }
+
+    // Returns the end of the record at `position`, or -1 if there is no valid record
+    private int nextRecord(Segment segment, int position, int limit) {
+        if (position + RECORD_HEADER_BYTES > limit) {
+            return -1;
+        }
+        int length = segment.readBuffer.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_BYTES + length > limit) {
+            return -1;
+        }
+        return position + RECORD_HEADER_BYTES + length;
+    }
+
+    private byte[] readRecord(Segment segment, int position, int end) {
+        byte[] record = new byte[end - position - RECORD_HEADER_BYTES];
+        ByteBuffer buffer = segment.readBuffer;
+        buffer.position(position + RECORD_HEADER_BYTES);
+        buffer.get(record);
+        return record;
+    }
+
+    private boolean isValid(Segment segment, int position, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(readRecord(segment, position, end));
+        return segment.readBuffer.getInt(position + 4) == (int) crc.getValue();
+    }
+
+    private synchronized Segment nextSegment(Segment segment) {
+        Map.Entry<Long, Segment> next = segments.higherEntry(segment.sequence);
+        return Objects.isNull(next) ? null : next.getValue();
+    }
+
+    // Forgets the records before the position, and deletes the drained segments
+    private void commit(Segment segment, int position) throws IOException {
+        if (segment == readSegment && position == readPosition) {
+            return;
+        }
+        List<Segment> drained = new ArrayList<>();
+        synchronized (this) {
+            while (segments.firstKey() < segment.sequence) {
+                drained.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        readSegment = segment;
+        readPosition = position;
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpoint.putLong(0, segment.sequence);
+        checkpoint.putInt(8, position);
+        checkpointChannel.write(checkpoint, 0);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            checkpointChannel.force(false);
+        }
+        for (Segment drainedSegment : drained) {
+            // the mapping is released when the buffer is collected
+            closeQuietly(drainedSegment.channel);
+            Files.deleteIfExists(segmentPath(drainedSegment.sequence));
+        }
+    }
+
+    // Reopens the segments left on disk, and finds the drained and appended positions
+    private void recover() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                sequences.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        sequences.sort(Long::compare);
+        long checkpointSequence = -1;
+        int checkpointPosition = 0;
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        if (checkpointChannel.read(checkpoint, 0) == 12) {
+            checkpointSequence = checkpoint.getLong(0);
+            checkpointPosition = checkpoint.getInt(8);
+        }
+        for (long sequence : sequences) {
+            if (sequence < checkpointSequence) {
+                Files.deleteIfExists(segmentPath(sequence));
+                continue;
+            }
+            segments.put(sequence, openSegment(sequence));
+        }
+        if (segments.isEmpty()) {
+            long sequence = Math.max(0, checkpointSequence + 1);
+            segments.put(sequence, openSegment(sequence));
+        }
+        readSegment = segments.firstEntry().getValue();
+        readPosition = readSegment.sequence == checkpointSequence ? checkpointPosition : 0;
+        // appends go on after the last complete record, the record broken by a crash is dropped
+        writeSegment = segments.lastEntry().getValue();
+        int position = writeSegment == readSegment ? readPosition : 0;
+        int next;
+        while ((next = nextRecord(writeSegment, position, segmentBytes)) > 0 && isValid(writeSegment, position, next)) {
+            position = next;
+        }
+        for (int i = position; i < next; i++) {
+            writeSegment.writeBuffer.put(i, (byte) 0);
+        }
+        writePosition = position;
+        if (segments.size() > 1 || writePosition > readPosition) {
+            log.info("[ByteplusSDK][WriteSpool] recover {} segments from {}", segments.size(), directory);
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(sequence, channel, mapped);
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("[ByteplusSDK][WriteSpool] close file fail, err:{}", e.getMessage());
+        }
+    }
+
+    private static class Segment {
+        private final long sequence;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer mapped;
+
+        // Views of the mapping with their own positions, for the appending threads and the drainer
+        private final ByteBuffer writeBuffer;
+
+        private final ByteBuffer readBuffer;
+
+        private Segment(long sequence, FileChannel channel, MappedByteBuffer mapped) {
+            this.sequence = sequence;
+            this.channel = channel;
+            this.mapped = mapped;
+            this.writeBuffer = mapped.duplicate();
+            this.readBuffer = mapped.duplicate();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package byteplus.sdk.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// AIMD concurrency limiter with one limit for each endpoint.
+// The limit grows by about one every round trip while calls succeed with the
+// limit mostly used, and is cut by BACKOFF_RATIO when the server answers 429
+// or a call times out, at most once for the calls sent before the last cut.
+// Calls exceeding the limit wait in a FIFO queue rather than failing fast,
+// so a throttled client slows down instead of turning into a retry storm.
+// The queue holds at most `maxWaiters` calls, further calls fail with NetException.
+@Slf4j
+class AdaptiveLimiter {
+    private static final double BACKOFF_RATIO = 0.7;
+
+    enum Outcome {
+        // The call was served, the limit may grow
+        SUCCESS,
+        // The server shed the call or it timed out, the limit shrinks
+        DROPPED,
+        // The call says nothing about the server load, e.g. a bad request
+        IGNORED
+    }
+
+    private final int initialLimit;
+
+    private final int maxLimit;
+
+    private final int maxWaiters;
+
+    private final Map<String, EndpointLimit> limitMap = new ConcurrentHashMap<>();
+
+    AdaptiveLimiter(int initialLimit, int maxLimit, int maxWaiters) {
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaiters = maxWaiters;
+    }
+
+    // The returned future is completed with a permit once the endpoint has
+    // room for one more call, or exceptionally with NetException when too many
+    // calls are waiting. Completing the future in any other way, e.g.
+    // cancelling it, gives up waiting.
+    // The permit must be released exactly once when the call finished.
+    CompletableFuture<Permit> acquire(String endpoint) {
+        return limitMap.computeIfAbsent(endpoint, EndpointLimit::new).acquire();
+    }
+
+    class EndpointLimit {
+        private final String endpoint;
+
+        // guarded by this
+        private double limit = initialLimit;
+
+        // guarded by this
+        private int inflight;
+
+        // Only calls acquired after the last cut can cut the limit again,
+        // guarded by this
+        private long acquireSeq;
+
+        // guarded by this
+        private long lastCutSeq;
+
+        // guarded by this
+        private final Queue<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+        private EndpointLimit(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private CompletableFuture<Permit> acquire() {
+            CompletableFuture<Permit> future = new CompletableFuture<>();
+            Permit permit = null;
+            boolean queued = false;
+            synchronized (this) {
+                if (inflight < (int) limit && waiters.isEmpty()) {
+                    permit = newPermit();
+                } else if (waiters.size() < maxWaiters) {
+                    waiters.add(future);
+                    queued = true;
+                }
+            }
+            if (permit != null) {
+                future.complete(permit);
+            } else if (queued) {
+                // a waiter giving up leaves the queue, so it does not take a place in it
+                future.whenComplete((granted, e) -> {
+                    if (Objects.nonNull(e)) {
+                        removeWaiter(future);
+                    }
+                });
+            } else {
+                future.completeExceptionally(new NetException(
+                        "too many calls waiting for concurrency limit of " + endpoint));
+            }
+            return future;
+        }
+
+        private synchronized void removeWaiter(CompletableFuture<Permit> waiter) {
+            waiters.remove(waiter);
+        }
+
+        // guarded by this
+        private Permit newPermit() {
+            inflight++;
+            return new Permit(this, ++acquireSeq);
+        }
+
+        private void release(Permit permit, Outcome outcome) {
+            synchronized (this) {
+                adjust(permit, outcome);
+                inflight--;
+            }
+            grantWaiters();
+        }
+
+        // guarded by this
+        private void adjust(Permit permit, Outcome outcome) {
+            if (outcome == Outcome.SUCCESS) {
+                // only grow when the limit is actually the bottleneck
+                if (inflight * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+                return;
+            }
+            if (outcome == Outcome.DROPPED && permit.seq > lastCutSeq) {
+                double newLimit = Math.max(1.0, limit * BACKOFF_RATIO);
+                log.debug("[ByteplusSDK] endpoint {} is overloaded, cut concurrency limit from {} to {}",
+                        endpoint, (int) limit, (int) newLimit);
+                limit = newLimit;
+                lastCutSeq = acquireSeq;
+            }
+        }
+
+        private void grantWaiters() {
+            while (true) {
+                CompletableFuture<Permit> waiter;
+                Permit permit;
+                synchronized (this) {
+                    if (inflight >= (int) limit || waiters.isEmpty()) {
+                        return;
+                    }
+                    waiter = waiters.poll();
+                    permit = newPermit();
+                }
+                // the waiter may have given up, pass the permit on
+                if (!waiter.complete(permit)) {
+                    permit.release(Outcome.IGNORED);
+                    return;
+                }
+            }
+        }
+    }
+
+    static class Permit {
+        private final EndpointLimit endpointLimit;
+
+        private final long seq;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(EndpointLimit endpointLimit, long seq) {
+            this.endpointLimit = endpointLimit;
+            this.seq = seq;
+        }
+
+        void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                endpointLimit.release(this, outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package byteplus.sdk.core;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Observes the phases of every attempt of the http calls, e.g. to correlate
+// the calls with distributed traces, or to find which phase dominates the latency.
+// Every attempt of a call is observed, including retries and hedged copies.
+//
+// The phases of an attempt are called in order:
+//   onEncode   -> the body is serialized and gzip compressed. They are one phase,
+//                 as the body is serialized straight into the compressor
+//   onSign     -> the headers are built and the body is signed
+//   onSend     -> the request is about to be sent, headers set now are sent with it
+//   onResponse -> the response headers are received
+//   onParse    -> the response body is read, decompressed and parsed
+// An attempt failed in any phase ends with onFailure instead of the following phases.
+// Attempts cancelled by their callers, e.g. the losers of hedged calls, end without any callback.
+//
+// Callbacks run on the threads making and completing the calls, so they should
+// return quickly. Exceptions thrown by them are logged and ignored.
+// DNS, connect and TLS timings are reported by OkHttp's EventListener,
+// which can be set by `eventListenerFactory` of the client builders.
+public interface CallInterceptor {
+    default void onEncode(Attempt attempt, long uncompressedBytes, long compressedBytes, long costNanos) {
+    }
+
+    default void onSign(Attempt attempt, long costNanos) {
+    }
+
+    // `queueNanos` is how long the attempt waited for the concurrency limit
+    default void onSend(Attempt attempt, long queueNanos) {
+    }
+
+    // `networkNanos` is from sending the request to receiving the response headers
+    default void onResponse(Attempt attempt, int httpCode, long networkNanos) {
+    }
+
+    default void onParse(Attempt attempt, int statusCode, long costNanos) {
+    }
+
+    default void onFailure(Attempt attempt, Throwable e) {
+    }
+
+    // One attempt of a call, it is only used by one thread at a time
+    class Attempt {
+        @Getter
+        private final String url;
+
+        @Getter
+        private final String endpoint;
+
+        @Getter
+        private final String requestId;
+
+        private Map<String, String> headers;
+
+        private Map<String, Object> attributes;
+
+        // Start of the current phase, maintained by HttpCaller
+        long lapStartNanos;
+
+        Attempt(String url, String endpoint, String requestId) {
+            this.url = url;
+            this.endpoint = endpoint;
+            this.requestId = requestId;
+            this.lapStartNanos = System.nanoTime();
+        }
+
+        // Sets a header of the request, e.g. trace context. Headers set after
+        // `onSend` returns are ignored. Headers already set, such as "Request-Id",
+        // "Tenant-Signature" or the ones of `Option.withHeaders`, are not overwritten
+        public void setHeader(String name, String value) {
+            if (Objects.isNull(headers)) {
+                headers = new LinkedHashMap<>();
+            }
+            headers.put(name, value);
+        }
+
+        // Keeps a value with the attempt, e.g. the span of a trace
+        public void setAttribute(String name, Object value) {
+            if (Objects.isNull(attributes)) {
+                attributes = new HashMap<>();
+            }
+            attributes.put(name, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(String name) {
+            return Objects.isNull(attributes) ? null : (T) attributes.get(name);
+        }
+
+        Map<String, String> getHeaders() {
+            return Objects.isNull(headers) ? Collections.emptyMap() : headers;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package byteplus.sdk.core;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Stops calling an endpoint which keeps failing, with one breaker for each
+// endpoint (url path, e.g. predict of one scene, or writing one kind of data).
+//
+// A CLOSED breaker lets all the calls through, and opens when the failure
+// rate of its latest `windowSize` calls reaches `failureRateThreshold`.
+// An OPEN breaker rejects calls with CircuitBreakerOpenException without
+// sending them, until `openDuration` passed. Then it is HALF_OPEN and lets
+// `halfOpenCalls` probing calls through: it closes if all of them succeed,
+// otherwise it opens again.
+// Timeouts, network errors and server errors (http 5xx or status code >= 500)
+// are failures, calls cancelled or rejected by the client itself are not counted.
+// Clients built with the same CircuitBreaker share its breakers.
+@Slf4j
+public class CircuitBreaker {
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Count of the latest calls the failure rate is calculated on
+        private int windowSize = 50;
+
+        // The breaker never opens before this many calls are recorded
+        private int minimumCalls = 20;
+
+        // The failure rate which opens the breaker
+        private float failureRateThreshold = 0.5f;
+
+        // How long an open breaker rejects calls before probing
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        // Count of probing calls let through by a half open breaker
+        private int halfOpenCalls = 3;
+    }
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    enum Result {
+        SUCCESS,
+        FAILURE,
+        // Not counted, e.g. the call was cancelled by its caller
+        IGNORED
+    }
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final float failureRateThreshold;
+
+    private final long openDurationNanos;
+
+    private final int halfOpenCalls;
+
+    private final Map<String, EndpointBreaker> breakerMap = new ConcurrentHashMap<>();
+
+    public CircuitBreaker(Param param) {
+        if (param.windowSize <= 0 || param.minimumCalls <= 0 || param.minimumCalls > param.windowSize) {
+            throw new RuntimeException("Minimum calls should be in (0, windowSize]");
+        }
+        if (param.failureRateThreshold <= 0 || param.failureRateThreshold > 1) {
+            throw new RuntimeException("Failure rate threshold should be in (0, 1]");
+        }
+        if (param.halfOpenCalls <= 0) {
+            throw new RuntimeException("Half open calls should be positive");
+        }
+        this.windowSize = param.windowSize;
+        this.minimumCalls = param.minimumCalls;
+        this.failureRateThreshold = param.failureRateThreshold;
+        this.openDurationNanos = param.openDuration.toNanos();
+        this.halfOpenCalls = param.halfOpenCalls;
+    }
+
+    public CircuitBreaker() {
+        this(new Param());
+    }
+
+    // Lets a call to the endpoint through, the returned ticket
+    // must be released with the call's result when it finished
+    Ticket acquire(String endpoint) throws CircuitBreakerOpenException {
+        return breakerMap.computeIfAbsent(endpoint, EndpointBreaker::new).acquire();
+    }
+
+    private class EndpointBreaker {
+        private final String endpoint;
+
+        // guarded by this
+        private State state = State.CLOSED;
+
+        // Increased on every state change, results of calls let through
+        // in a former state are not counted, guarded by this
+        private long generation;
+
+        // Outcomes of the latest calls in CLOSED state, true means failure, guarded by this
+        private final boolean[] window = new boolean[windowSize];
+
+        // guarded by this
+        private int windowIndex;
+
+        // guarded by this
+        private int windowCount;
+
+        // guarded by this
+        private int failureCount;
+
+        // guarded by this
+        private long openedNanos;
+
+        // Probing calls let through in HALF_OPEN state, guarded by this
+        private int probeCount;
+
+        // Probing calls succeeded in HALF_OPEN state, guarded by this
+        private int probeSuccessCount;
+
+        private EndpointBreaker(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private synchronized Ticket acquire() throws CircuitBreakerOpenException {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedNanos < openDurationNanos) {
+                    throw new CircuitBreakerOpenException(endpoint);
+                }
+                transitTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probeCount >= halfOpenCalls) {
+                    throw new CircuitBreakerOpenException(endpoint);
+                }
+                probeCount++;
+            }
+            return new Ticket(this, generation);
+        }
+
+        private synchronized void release(long ticketGeneration, Result result) {
+            if (ticketGeneration != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (result == Result.FAILURE) {
+                    transitTo(State.OPEN);
+                } else if (result == Result.IGNORED) {
+                    // give the probe back
+                    probeCount--;
+                } else if (++probeSuccessCount >= halfOpenCalls) {
+                    transitTo(State.CLOSED);
+                }
+                return;
+            }
+            if (state != State.CLOSED || result == Result.IGNORED) {
+                return;
+            }
+            boolean failure = result == Result.FAILURE;
+            if (windowCount == windowSize) {
+                if (window[windowIndex]) {
+                    failureCount--;
+                }
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = failure;
+            windowIndex = (windowIndex + 1) % windowSize;
+            if (failure) {
+                failureCount++;
+            }
+            if (windowCount >= minimumCalls && failureCount >= failureRateThreshold * windowCount) {
+                transitTo(State.OPEN);
+            }
+        }
+
+        // guarded by this
+        private void transitTo(State newState) {
+            log.warn("[ByteplusSDK] circuit breaker of {} turns from {} to {}", endpoint, state, newState);
+            state = newState;
+            generation++;
+            probeCount = 0;
+            probeSuccessCount = 0;
+            if (newState == State.OPEN) {
+                openedNanos = System.nanoTime();
+            }
+            if (newState == State.CLOSED) {
+                windowIndex = 0;
+                windowCount = 0;
+                failureCount = 0;
+            }
+        }
+    }
+
+    static class Ticket {
+        private final EndpointBreaker breaker;
+
+        private final long generation;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Ticket(EndpointBreaker breaker, long generation) {
+            this.breaker = breaker;
+            this.generation = generation;
+        }
+
+        void release(Result result) {
+            if (released.compareAndSet(false, true)) {
+                breaker.release(generation, result);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package byteplus.sdk.core;
+
+// throw when the circuit breaker of the endpoint is open,
+// the request is not sent
+public class CircuitBreakerOpenException extends BizException {
+    private final String endpoint;
+
+    public CircuitBreakerOpenException(String endpoint) {
+        super("circuit breaker is open, endpoint:" + endpoint);
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -4,14 +4,31 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 @Getter
 public class Context {
+    private final static int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    private final static Duration DEFAULT_KEEP_ALIVE_DURATION = Duration.ofMinutes(5);
+
+    // Shared by all the contexts which do not customize the http client
+    private final static OkHttpClient DEFAULT_HTTP_CLIENT = new OkHttpClient.Builder().build();
 
     // A unique token assigned by bytedance, which is used to
     // generate an authenticated signature when building a request.
@@ -38,6 +55,75 @@ public class Context {
     // Customer-defined http headers, all requests will include these headers
     private Map<String, String> customerHeaders = Collections.emptyMap();
 
+    // Parse responses from a per-thread reusable buffer instead of the
+    // connection stream, faster for large responses at the cost of
+    // keeping one buffer per calling thread
+    private boolean pooledParseBuffer = false;
+
+    // How requests are routed between hosts
+    private HostSelectStrategy hostSelectStrategy = HostSelectStrategy.FAILOVER;
+
+    // The http client shared by all the calls and the host pinger of this context,
+    // request timeouts are applied on top of it, so they share one connection pool
+    private final OkHttpClient httpClient;
+
+    // Executor used to decompress and parse responses of async requests,
+    // their bodies are already read from the connections when it runs
+    private Executor callbackExecutor = ForkJoinPool.commonPool();
+
+    // Interval between two rounds of host pings, each round is delayed
+    // by a random jitter of up to 10% so clients do not ping in lockstep
+    private Duration pingInterval = Duration.ofMillis(1000);
+
+    // Count of the latest pings a host's failure rate is calculated on
+    private int pingWindowSize = 60;
+
+    // A host whose failure rate reaches this threshold is unavailable
+    private float pingFailureRateThreshold = 0.1f;
+
+    // Timeout of one ping
+    private Duration pingTimeout = Duration.ofMillis(200);
+
+    // Limit concurrent calls of each endpoint adaptively, the limit shrinks when
+    // the server answers STATUS_CODE_TOO_MANY_REQUEST or calls time out,
+    // and grows back while calls succeed. Calls over the limit wait for a permit
+    private boolean adaptiveConcurrency = false;
+
+    // The concurrency limit an endpoint starts with
+    private int initialConcurrencyLimit = 20;
+
+    // The concurrency limit of an endpoint never grows beyond this
+    private int maxConcurrencyLimit = 200;
+
+    // Max calls of an endpoint waiting for a permit, further calls fail
+    // with NetException right away
+    private int maxConcurrencyWaiters = 1000;
+
+    // Optional, how calls are retried, calls are never retried in default
+    private RetryPolicy retryPolicy;
+
+    // Optional, how predict calls are hedged, calls are never hedged in default
+    private HedgePolicy hedgePolicy;
+
+    // Optional, stops calling endpoints which keep failing
+    private CircuitBreaker circuitBreaker;
+
+    // Optional, caches predict responses, predict calls are never cached in default
+    private PredictCache predictCache;
+
+    // Let concurrent predict calls of the same scene and request share one
+    // http call in flight, and all of them get its response
+    private boolean coalescePredict = false;
+
+    // Optional, receives the latencies, sizes and status codes of the http calls
+    private MetricsCollector metricsCollector;
+
+    // Observe the phases of every http call, called in order
+    private List<CallInterceptor> interceptors = Collections.emptyList();
+
+    // Generates the request ids of calls which are not given one
+    private RequestIdGenerator requestIdGenerator = new TimeOrderedIdGenerator();
+
     @Slf4j
     @Accessors(chain = true)
     @Setter
@@ -55,6 +141,65 @@ public class Context {
         private Map<String, String> headers;
 
         private Region region;
+
+        private Boolean pooledParseBuffer;
+
+        // Max idle connections kept in the pool, OkHttp keeps 5 in default
+        private Integer maxIdleConnections;
+
+        // How long an idle connection is kept in the pool, 5 minutes in default
+        private Duration keepAliveDuration;
+
+        // Max concurrent async requests, 64 in default
+        private Integer maxRequests;
+
+        // Max concurrent async requests to one host, 5 in default
+        private Integer maxRequestsPerHost;
+
+        // Negotiate HTTP/2 (multiplex all requests to a host on one connection)
+        // when server supports, or always use HTTP/1.1. True in default
+        private Boolean http2;
+
+        // Executor runs OkHttp's async calls, and decompresses and parses their responses
+        private ExecutorService executor;
+
+        private HostSelectStrategy hostSelectStrategy;
+
+        private Duration pingInterval;
+
+        private Integer pingWindowSize;
+
+        private Float pingFailureRateThreshold;
+
+        private Duration pingTimeout;
+
+        private Boolean adaptiveConcurrency;
+
+        private Integer initialConcurrencyLimit;
+
+        private Integer maxConcurrencyLimit;
+
+        private Integer maxConcurrencyWaiters;
+
+        private RetryPolicy retryPolicy;
+
+        private HedgePolicy hedgePolicy;
+
+        private CircuitBreaker circuitBreaker;
+
+        private PredictCache predictCache;
+
+        private Boolean coalescePredict;
+
+        private MetricsCollector metricsCollector;
+
+        private List<CallInterceptor> interceptors;
+
+        private RequestIdGenerator requestIdGenerator;
+
+        // Creates OkHttp's EventListener of every http call, which
+        // reports the timings of DNS, connecting and TLS handshakes
+        private EventListener.Factory eventListenerFactory;
     }
 
     public Context(Param param) {
@@ -70,6 +215,112 @@ public class Context {
         if (Objects.nonNull(param.headers)) {
             this.customerHeaders = param.headers;
         }
+        if (Objects.nonNull(param.pooledParseBuffer)) {
+            this.pooledParseBuffer = param.pooledParseBuffer;
+        }
+        if (Objects.nonNull(param.executor)) {
+            this.callbackExecutor = param.executor;
+        }
+        if (Objects.nonNull(param.hostSelectStrategy)) {
+            this.hostSelectStrategy = param.hostSelectStrategy;
+        }
+        fillPingParams(param);
+        fillConcurrencyParams(param);
+        this.retryPolicy = param.retryPolicy;
+        this.hedgePolicy = param.hedgePolicy;
+        this.circuitBreaker = param.circuitBreaker;
+        this.predictCache = param.predictCache;
+        if (Objects.nonNull(param.coalescePredict)) {
+            this.coalescePredict = param.coalescePredict;
+        }
+        this.metricsCollector = param.metricsCollector;
+        if (Objects.nonNull(param.interceptors)) {
+            this.interceptors = Collections.unmodifiableList(new ArrayList<>(param.interceptors));
+        }
+        if (Objects.nonNull(param.requestIdGenerator)) {
+            this.requestIdGenerator = param.requestIdGenerator;
+        }
+        this.httpClient = buildHttpClient(param);
+    }
+
+    private OkHttpClient buildHttpClient(Param param) {
+        if (Objects.isNull(param.maxIdleConnections) && Objects.isNull(param.keepAliveDuration)
+                && Objects.isNull(param.maxRequests) && Objects.isNull(param.maxRequestsPerHost)
+                && Objects.isNull(param.http2) && Objects.isNull(param.executor)
+                && Objects.isNull(param.eventListenerFactory)) {
+            return DEFAULT_HTTP_CLIENT;
+        }
+        OkHttpClient.Builder builder = DEFAULT_HTTP_CLIENT.newBuilder();
+        if (Objects.nonNull(param.maxIdleConnections) || Objects.nonNull(param.keepAliveDuration)) {
+            int maxIdleConnections = Objects.nonNull(param.maxIdleConnections) ?
+                    param.maxIdleConnections : DEFAULT_MAX_IDLE_CONNECTIONS;
+            Duration keepAlive = Objects.nonNull(param.keepAliveDuration) ?
+                    param.keepAliveDuration : DEFAULT_KEEP_ALIVE_DURATION;
+            builder.connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        Dispatcher dispatcher = Objects.nonNull(param.executor) ? new Dispatcher(param.executor) : new Dispatcher();
+        if (Objects.nonNull(param.maxRequests)) {
+            dispatcher.setMaxRequests(param.maxRequests);
+        }
+        if (Objects.nonNull(param.maxRequestsPerHost)) {
+            dispatcher.setMaxRequestsPerHost(param.maxRequestsPerHost);
+        }
+        builder.dispatcher(dispatcher);
+        if (Objects.nonNull(param.http2) && !param.http2) {
+            builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+        if (Objects.nonNull(param.eventListenerFactory)) {
+            builder.eventListenerFactory(param.eventListenerFactory);
+        }
+        return builder.build();
+    }
+
+    private void fillPingParams(Param param) {
+        if (Objects.nonNull(param.pingInterval)) {
+            if (param.pingInterval.isNegative() || param.pingInterval.isZero()) {
+                throw new RuntimeException("Ping interval should be positive");
+            }
+            this.pingInterval = param.pingInterval;
+        }
+        if (Objects.nonNull(param.pingWindowSize)) {
+            if (param.pingWindowSize <= 0) {
+                throw new RuntimeException("Ping window size should be positive");
+            }
+            this.pingWindowSize = param.pingWindowSize;
+        }
+        if (Objects.nonNull(param.pingFailureRateThreshold)) {
+            if (param.pingFailureRateThreshold <= 0 || param.pingFailureRateThreshold > 1) {
+                throw new RuntimeException("Ping failure rate threshold should be in (0, 1]");
+            }
+            this.pingFailureRateThreshold = param.pingFailureRateThreshold;
+        }
+        if (Objects.nonNull(param.pingTimeout)) {
+            if (param.pingTimeout.isNegative() || param.pingTimeout.isZero()) {
+                throw new RuntimeException("Ping timeout should be positive");
+            }
+            this.pingTimeout = param.pingTimeout;
+        }
+    }
+
+    private void fillConcurrencyParams(Param param) {
+        if (Objects.nonNull(param.adaptiveConcurrency)) {
+            this.adaptiveConcurrency = param.adaptiveConcurrency;
+        }
+        if (Objects.nonNull(param.initialConcurrencyLimit)) {
+            this.initialConcurrencyLimit = param.initialConcurrencyLimit;
+        }
+        if (Objects.nonNull(param.maxConcurrencyLimit)) {
+            this.maxConcurrencyLimit = param.maxConcurrencyLimit;
+        }
+        if (initialConcurrencyLimit <= 0 || initialConcurrencyLimit > maxConcurrencyLimit) {
+            throw new RuntimeException("Initial concurrency limit should be in (0, maxConcurrencyLimit]");
+        }
+        if (Objects.nonNull(param.maxConcurrencyWaiters)) {
+            if (param.maxConcurrencyWaiters < 0) {
+                throw new RuntimeException("Max concurrency waiters should not be negative");
+            }
+            this.maxConcurrencyWaiters = param.maxConcurrencyWaiters;
+        }
     }
 
     private void checkRequiredField(Param param) {
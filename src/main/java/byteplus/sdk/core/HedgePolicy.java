@@ -0,0 +1,123 @@
+package byteplus.sdk.core;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// How predict calls are hedged.
+// When a predict call is not answered within the hedge delay, one more copy
+// of it is sent to the next healthy host, the first successful answer is
+// taken and the other call is cancelled. Hedging needs at least two hosts.
+//
+// The delay is either fixed, or the `latencyPercentile` of the latest
+// predict latencies, so only the slowest calls are hedged.
+// At most `maxHedgeRatio` of the calls are hedged: every call earns the
+// ratio of a token and every hedge spends one, so a slow server does not
+// get twice the load.
+// Clients built with the same HedgePolicy share its latencies and tokens.
+public class HedgePolicy {
+    // Count of the latest latencies the adaptive delay is calculated on,
+    // should be a power of 2
+    private final static int LATENCY_WINDOW_SIZE = 1024;
+
+    // The adaptive delay is recalculated every this many calls, should be a power of 2
+    private final static int RECALCULATE_INTERVAL = 64;
+
+    // Tokens saved for bursts of slow calls
+    private final static double MAX_TOKENS = 10;
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Fixed hedge delay, the delay adapts to the observed latency if null
+        private Duration delay;
+
+        // Percentile of the latest latencies used as the adaptive delay
+        private double latencyPercentile = 0.95;
+
+        // Lower bound of the adaptive delay
+        private Duration minDelay = Duration.ofMillis(5);
+
+        // Max ratio of the calls which are hedged
+        private double maxHedgeRatio = 0.05;
+    }
+
+    private final Duration fixedDelay;
+
+    private final double latencyPercentile;
+
+    private final long minDelayNanos;
+
+    private final double maxHedgeRatio;
+
+    private final long[] latencyNanos = new long[LATENCY_WINDOW_SIZE];
+
+    private final AtomicInteger latencyCount = new AtomicInteger();
+
+    // -1 means not enough latencies yet
+    private volatile long adaptiveDelayNanos = -1;
+
+    // guarded by this
+    private double tokens = MAX_TOKENS;
+
+    public HedgePolicy(Param param) {
+        if (param.latencyPercentile <= 0 || param.latencyPercentile >= 1) {
+            throw new RuntimeException("Latency percentile should be in (0, 1)");
+        }
+        if (param.maxHedgeRatio <= 0 || param.maxHedgeRatio > 1) {
+            throw new RuntimeException("Max hedge ratio should be in (0, 1]");
+        }
+        this.fixedDelay = param.delay;
+        this.latencyPercentile = param.latencyPercentile;
+        this.minDelayNanos = param.minDelay.toNanos();
+        this.maxHedgeRatio = param.maxHedgeRatio;
+    }
+
+    public HedgePolicy() {
+        this(new Param());
+    }
+
+    // The delay before hedging a call which starts now,
+    // null if the call should not be hedged
+    Duration delay() {
+        synchronized (this) {
+            tokens = Math.min(MAX_TOKENS, tokens + maxHedgeRatio);
+        }
+        if (Objects.nonNull(fixedDelay)) {
+            return fixedDelay;
+        }
+        long delayNanos = adaptiveDelayNanos;
+        return delayNanos < 0 ? null : Duration.ofNanos(delayNanos);
+    }
+
+    // Called when a call is about to be hedged, returns false if the hedge rate exceeds
+    synchronized boolean tryHedge() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    // Records the latency of a successful call
+    void recordLatency(long nanos) {
+        int count = latencyCount.incrementAndGet();
+        latencyNanos[(count - 1) & (LATENCY_WINDOW_SIZE - 1)] = nanos;
+        if (Objects.isNull(fixedDelay) && (count & (RECALCULATE_INTERVAL - 1)) == 0) {
+            // the count may overflow after running for long
+            recalculateDelay(count > 0 && count < LATENCY_WINDOW_SIZE ? count : LATENCY_WINDOW_SIZE);
+        }
+    }
+
+    // Races with `recordLatency` only make the window slightly stale
+    private void recalculateDelay(int size) {
+        long[] sorted = Arrays.copyOf(latencyNanos, size);
+        Arrays.sort(sorted);
+        int index = Math.min(size - 1, (int) (size * latencyPercentile));
+        adaptiveDelayNanos = Math.max(minDelayNanos, sorted[index]);
+    }
+}
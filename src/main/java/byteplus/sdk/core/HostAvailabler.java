@@ -2,44 +2,74 @@ package byteplus.sdk.core;
 
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class HostAvailabler {
-    private static final Duration INTERVAL = Duration.ofMillis(1000);
+    private static final String PING_URL_FORMAT = "{}://%s/predict/api/ping";
 
-    private static final int WINDOW_SIZE = 60;
+    // Endpoint of pings in metrics
+    private static final String PING_ENDPOINT = "/predict/api/ping";
 
-    private static final float FAILURE_RATE_THRESHOLD = (float) 0.1;
+    // Each round of pings is delayed by a random factor in [1 - JITTER, 1 + JITTER]
+    // of the interval, so clients created together do not ping in lockstep
+    private static final double PING_INTERVAL_JITTER = 0.1;
 
-    private static final String PING_URL_FORMAT = "{}://%s/predict/api/ping";
+    // Shared by all the HostAvailablers in the JVM, it only starts ping rounds,
+    // pings themselves are sent asynchronously by the http client
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(HostAvailabler::newSchedulerThread);
+
+    // Runs the pings of all the HostAvailablers, threads are created on demand
+    // and exit when idle
+    private static final ExecutorService PING_EXECUTOR =
+            Executors.newCachedThreadPool(HostAvailabler::newPingThread);
+
+    // Time constant of the latency EWMA,
+    // a sample's weight decays to 1/e after this duration
+    private static final Duration EWMA_DECAY = Duration.ofSeconds(10);
 
-    private static final Duration PING_TIMEOUT = Duration.ofMillis(200);
+    // Latency below this is treated as equal, differences of a few
+    // milliseconds are noise rather than a reason to move traffic
+    private static final double LATENCY_FLOOR_MILLIS = 5.0;
 
-    private static final OkHttpClient httpCli = new OkHttpClient()
-            .newBuilder()
-            .callTimeout(PING_TIMEOUT)
-            .build();
+    // How much an error rate of 100% multiplies the latency score
+    private static final double ERROR_PENALTY = 10.0;
 
-    private Map<String, Window> hostWindowMap;
+    // In FAILOVER, a healthy current host is only replaced by a host
+    // whose score is lower than this ratio of the current one,
+    // avoid flapping between hosts with similar latency
+    private static final double SWITCH_SCORE_RATIO = 0.7;
 
-    private String currentHost;
+    private final OkHttpClient httpCli;
 
-    private List<String> availableHosts;
+    private Map<String, HostStats> hostStatsMap;
+
+    private volatile String currentHost;
+
+    private volatile List<String> availableHosts;
 
     private final URLCenter urlCenter;
 
@@ -47,67 +77,150 @@ public class HostAvailabler {
 
     private final String REAL_PING_URL_FORMAT;
 
-    private ScheduledExecutorService executor;
+    private volatile ScheduledFuture<?> nextRound;
+
+    private volatile boolean closed;
 
     public HostAvailabler(Context context, URLCenter urlCenter) {
         this.urlCenter = urlCenter;
         this.context = context;
         this.REAL_PING_URL_FORMAT = PING_URL_FORMAT.replace("{}", context.getSchema());
+        // share connection pool with the requests, so pings also keep the connections warm,
+        // but not their dispatcher, a ping queued behind the requests to a busy host
+        // would count the queueing as the latency of the host
+        this.httpCli = context.getHttpClient().newBuilder()
+                .dispatcher(new Dispatcher(PING_EXECUTOR))
+                .callTimeout(context.getPingTimeout())
+                .build();
+        currentHost = context.getHosts().get(0);
         if (context.getHosts().size() <= 1) {
             return;
         }
         availableHosts = context.getHosts();
-        currentHost = context.getHosts().get(0);
-        hostWindowMap = new HashMap<>(context.getHosts().size());
+        hostStatsMap = new HashMap<>(context.getHosts().size());
         for (String host : context.getHosts()) {
-            hostWindowMap.put(host, new Window(WINDOW_SIZE));
+            hostStatsMap.put(host, new HostStats(context.getPingWindowSize(),
+                    context.getPingInterval().multipliedBy(context.getPingWindowSize())));
         }
-        executor = Executors.newSingleThreadScheduledExecutor();
-        executor.scheduleAtFixedRate(this::checkHost, 0, INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        nextRound = SCHEDULER.schedule(this::checkHost, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private static Thread newSchedulerThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "byteplus-host-availabler");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static Thread newPingThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "byteplus-host-ping");
+        thread.setDaemon(true);
+        return thread;
     }
 
     public void shutdown() {
-        if (Objects.isNull(executor)) {
-            return;
+        closed = true;
+        ScheduledFuture<?> round = nextRound;
+        if (Objects.nonNull(round)) {
+            round.cancel(false);
         }
-        executor.shutdown();
     }
 
-    private void checkHost() {
-        try {
-            doCheckHost();
-            switchHost();
-        } catch (Throwable e) {
-            log.error("[ByteplusSDK] ping find unexpected err, {}", e.getMessage());
+    // Picks the host of a request according to the context's HostSelectStrategy
+    public String selectHost() {
+        List<String> hosts = availableHosts;
+        if (context.getHostSelectStrategy() != HostSelectStrategy.POWER_OF_TWO_CHOICES
+                || Objects.isNull(hosts) || hosts.isEmpty()) {
+            return currentHost;
+        }
+        if (hosts.size() == 1) {
+            return hosts.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(hosts.size());
+        int second = random.nextInt(hosts.size() - 1);
+        if (second >= first) {
+            second++;
         }
+        String host1 = hosts.get(first);
+        String host2 = hosts.get(second);
+        return hostStatsMap.get(host1).loadScore() <= hostStatsMap.get(host2).loadScore() ? host1 : host2;
     }
 
-    private void doCheckHost() {
-        availableHosts = new ArrayList<>(context.getHosts().size());
-        for (String host : context.getHosts()) {
-            Window window = hostWindowMap.get(host);
-            window.put(doPing(host));
-            if (window.failureRate() < FAILURE_RATE_THRESHOLD) {
-                availableHosts.add(host);
+    // Picks the healthiest available host other than `excludeHost`
+    // to send a hedged request to, null if there is none
+    public String selectHedgeHost(String excludeHost) {
+        List<String> hosts = availableHosts;
+        if (Objects.isNull(hosts)) {
+            return null;
+        }
+        for (String host : hosts) {
+            if (!host.equals(excludeHost)) {
+                return host;
             }
         }
-        if (availableHosts.size() <= 1) {
+        return null;
+    }
+
+    // Whether at least one host answers pings, always true when there is only one host
+    public boolean hasAvailableHost() {
+        List<String> hosts = availableHosts;
+        return Objects.isNull(hosts) || !hosts.isEmpty();
+    }
+
+    // Called by HttpCaller before sending a request to the host
+    public void onRequest(String host) {
+        HostStats stats = statsOf(host);
+        if (Objects.nonNull(stats)) {
+            stats.inflight.incrementAndGet();
+        }
+    }
+
+    // Called by HttpCaller when a request sent to the host finished,
+    // `success` is false when the request failed by network or server error
+    public void onResponse(String host, boolean success) {
+        HostStats stats = statsOf(host);
+        if (Objects.nonNull(stats)) {
+            stats.inflight.decrementAndGet();
+            stats.recordError(!success);
+        }
+    }
+
+    // Called by HttpCaller when a request sent to the host is cancelled by its
+    // caller, e.g. the loser of a hedged request. It says nothing about the
+    // host, so it is only no longer counted in flight
+    public void onCancel(String host) {
+        HostStats stats = statsOf(host);
+        if (Objects.nonNull(stats)) {
+            stats.inflight.decrementAndGet();
+        }
+    }
+
+    private HostStats statsOf(String host) {
+        if (Objects.isNull(hostStatsMap)) {
+            return null;
+        }
+        return hostStatsMap.get(host);
+    }
+
+    // Pings all the hosts concurrently, the next round is scheduled when
+    // every ping of this round finished, so rounds never overlap
+    private void checkHost() {
+        if (closed) {
             return;
         }
-        availableHosts.sort((host1, host2) -> {
-            float host1FailureRate = hostWindowMap.get(host1).failureRate();
-            float host2FailureRate = hostWindowMap.get(host2).failureRate();
-            float delta = host1FailureRate - host2FailureRate;
-            if (delta > 0.0001) {
-                return 1;
-            } else if (delta < -0.0001) {
-                return -1;
+        List<String> hosts = context.getHosts();
+        AtomicInteger remaining = new AtomicInteger(hosts.size());
+        for (String host : hosts) {
+            try {
+                doPing(host, hostStatsMap.get(host), remaining);
+            } catch (Throwable e) {
+                log.error("[ByteplusSDK] ping find unexpected err, {}", e.getMessage());
+                onPingDone(remaining);
             }
-            return 0;
-        });
+        }
     }
 
-    private boolean doPing(String host) {
+    private void doPing(String host, HostStats stats, AtomicInteger remaining) {
         String url = String.format(REAL_PING_URL_FORMAT, host);
         Request httpReq = new Request.Builder()
                 .url(url)
@@ -115,18 +228,80 @@ public class HostAvailabler {
                 .get()
                 .build();
         Call httpCall = httpCli.newCall(httpReq);
-        long start = System.currentTimeMillis();
-        try (Response httpRsp = httpCall.execute()) {
-            return httpRsp.code() == 200;
+        long start = System.nanoTime();
+        httpCall.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.warn("[ByteplusSDK] ping find err, host:{} err:{}", host, e.getMessage());
+                MetricsCollector metrics = context.getMetricsCollector();
+                if (Objects.nonNull(metrics)) {
+                    metrics.recordError(PING_ENDPOINT, String.valueOf(e.getMessage()).toLowerCase().contains("timeout"));
+                }
+                onPingResult(host, stats, false, start, remaining);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response httpRsp = response) {
+                    MetricsCollector metrics = context.getMetricsCollector();
+                    if (Objects.nonNull(metrics)) {
+                        metrics.recordStatus(PING_ENDPOINT, httpRsp.code());
+                    }
+                    onPingResult(host, stats, httpRsp.code() == 200, start, remaining);
+                }
+            }
+        });
+    }
+
+    private void onPingResult(String host, HostStats stats, boolean success,
+                              long start, AtomicInteger remaining) {
+        long costNanos = System.nanoTime() - start;
+        MetricsCollector metrics = context.getMetricsCollector();
+        if (Objects.nonNull(metrics)) {
+            metrics.recordLatency(PING_ENDPOINT, costNanos);
+        }
+        long cost = TimeUnit.NANOSECONDS.toMillis(costNanos);
+        log.debug("[ByteplusSDK] ping host:'{}' cost:'{}ms'", host, cost);
+        // a failed ping counts as slow as the timeout
+        stats.recordPing(success, success ? cost : Math.max(cost, context.getPingTimeout().toMillis()));
+        onPingDone(remaining);
+    }
+
+    private void onPingDone(AtomicInteger remaining) {
+        if (remaining.decrementAndGet() > 0) {
+            return;
+        }
+        try {
+            refreshAvailableHosts();
+            switchHost();
         } catch (Throwable e) {
-            log.warn("[ByteplusSDK] ping find err, host:{} err:{}", host, e.getMessage());
-            return false;
+            log.error("[ByteplusSDK] ping find unexpected err, {}", e.getMessage());
         } finally {
-            long cost = System.currentTimeMillis() - start;
-            log.debug("[ByteplusSDK] ping host:'{}' cost:'{}ms'", host, cost);
+            scheduleNextRound();
         }
     }
 
+    private void refreshAvailableHosts() {
+        float threshold = context.getPingFailureRateThreshold();
+        List<String> hosts = new ArrayList<>(context.getHosts().size());
+        for (String host : context.getHosts()) {
+            if (hostStatsMap.get(host).isHealthy(threshold)) {
+                hosts.add(host);
+            }
+        }
+        hosts.sort(Comparator.comparingDouble(host -> hostStatsMap.get(host).score()));
+        availableHosts = hosts;
+    }
+
+    private void scheduleNextRound() {
+        if (closed) {
+            return;
+        }
+        double jitter = ThreadLocalRandom.current().nextDouble(-PING_INTERVAL_JITTER, PING_INTERVAL_JITTER);
+        long delayMillis = (long) (context.getPingInterval().toMillis() * (1 + jitter));
+        nextRound = SCHEDULER.schedule(this::checkHost, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
     private Headers customerHeaders() {
         Headers.Builder builder = new Headers.Builder();
         context.getCustomerHeaders().forEach(builder::set);
@@ -134,19 +309,125 @@ public class HostAvailabler {
     }
 
     private void switchHost() {
+        List<String> hosts = availableHosts;
         String newHost;
-        if (availableHosts.isEmpty()) {
+        if (hosts.isEmpty()) {
             newHost = context.getHosts().get(0);
         } else {
-            newHost = availableHosts.get(0);
+            newHost = hosts.get(0);
+            if (hosts.contains(currentHost) && hostStatsMap.get(newHost).score()
+                    > hostStatsMap.get(currentHost).score() * SWITCH_SCORE_RATIO) {
+                newHost = currentHost;
+            }
         }
         if (!currentHost.equals(newHost)) {
             log.warn("[ByteplusSDK] switch host to {}, origin is {}", newHost, currentHost);
+            MetricsCollector metrics = context.getMetricsCollector();
+            if (Objects.nonNull(metrics)) {
+                metrics.onHostSwitch(currentHost, newHost);
+            }
             currentHost = newHost;
             urlCenter.refresh(currentHost);
         }
     }
 
+    // Health and latency signals of one host.
+    // Latency is only sampled by pings: request latency varies a lot by
+    // endpoint and only the routed host receives requests, so it can not be
+    // compared between hosts. Error rate is sampled by both pings and requests.
+    private static class HostStats {
+        private final Window window;
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        // guarded by this
+        private final Ewma latencyMillis = new Ewma(EWMA_DECAY);
+
+        // Starts from no error, and decays over the time the ping window
+        // covers, so the failure rate threshold tolerates about as many
+        // failed pings as the window does, e.g. 6 of 60 in default.
+        // guarded by this
+        private final Ewma errorRate;
+
+        // only accessed by ping callbacks, pings of one host never overlap
+        private boolean warmedUp;
+
+        HostStats(int windowSize, Duration errorDecay) {
+            this.window = new Window(windowSize);
+            this.errorRate = new Ewma(errorDecay, 0);
+        }
+
+        // only called by ping callbacks, pings of one host never overlap
+        void recordPing(boolean success, long costMillis) {
+            window.put(success);
+            synchronized (this) {
+                // the first successful ping pays for connecting and warming up,
+                // its latency says nothing about the host
+                if (warmedUp || !success) {
+                    latencyMillis.update(costMillis);
+                }
+                errorRate.update(success ? 0 : 1);
+            }
+            warmedUp = warmedUp || success;
+        }
+
+        synchronized void recordError(boolean error) {
+            errorRate.update(error ? 1 : 0);
+        }
+
+        boolean isHealthy(float failureRateThreshold) {
+            double currentErrorRate;
+            synchronized (this) {
+                currentErrorRate = errorRate.value;
+            }
+            return window.failureRate() < failureRateThreshold && currentErrorRate < failureRateThreshold;
+        }
+
+        synchronized double score() {
+            return Math.max(LATENCY_FLOOR_MILLIS, latencyMillis.value) * (1 + ERROR_PENALTY * errorRate.value);
+        }
+
+        double loadScore() {
+            return score() * (inflight.get() + 1);
+        }
+    }
+
+    // Time decayed exponentially weighted moving average
+    private static class Ewma {
+        private final long decayNanos;
+
+        private double value;
+
+        private long lastNanos;
+
+        private boolean initialized;
+
+        // Starts from the first sample
+        Ewma(Duration decay) {
+            this.decayNanos = decay.toNanos();
+        }
+
+        Ewma(Duration decay, double initialValue) {
+            this(decay);
+            this.value = initialValue;
+            this.lastNanos = System.nanoTime();
+            this.initialized = true;
+        }
+
+        void update(double sample) {
+            long now = System.nanoTime();
+            if (!initialized) {
+                value = sample;
+                lastNanos = now;
+                initialized = true;
+                return;
+            }
+            double weight = Math.exp(-(double) (now - lastNanos) / decayNanos);
+            value = value * weight + sample * (1 - weight);
+            lastNanos = now;
+        }
+    }
+
     private static class Window {
         private final int size;
         private final boolean[] items;
@@ -0,0 +1,10 @@
+package byteplus.sdk.core;
+
+public enum HostSelectStrategy {
+    // all requests go to the best scored healthy host,
+    // switch to another one only when it is unhealthy or clearly slower
+    FAILOVER,
+    // every request picks two random healthy hosts, and goes to the one
+    // with lower score weighted by its in-flight requests
+    POWER_OF_TWO_CHOICES
+}
@@ -1,44 +1,123 @@
 package byteplus.sdk.core;
 
 import com.alibaba.fastjson.JSON;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
-import okhttp3.OkHttpClient;
+import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import static byteplus.sdk.core.Constant.STATUS_CODE_IDEMPOTENT;
+import static byteplus.sdk.core.Constant.STATUS_CODE_OPERATION_LOSS;
+import static byteplus.sdk.core.Constant.STATUS_CODE_SUCCESS;
+import static byteplus.sdk.core.Constant.STATUS_CODE_TOO_MANY_REQUEST;
+
 @Slf4j
 public class HttpCaller {
     // The http request was executed successfully without any net exception
     private final static int SUCCESS_HTTP_CODE = 200;
 
-    private final static OkHttpClient defaultHttpCli = new OkHttpClient.Builder().build();
+    private final static int GZIP_BUFFER_SIZE = 8192;
+
+    // Hex digits of "Tenant-Nonce"
+    private final static int NONCE_LENGTH = 8;
+
+    // Buffer size of the stream backed CodedInputStream that parses responses
+    private final static int PARSE_BUFFER_SIZE = 8192;
 
-    private volatile static Map<Duration, OkHttpClient> timeoutHttpCliMap = new HashMap<>();
+    // A thread never keeps a parse buffer larger than this
+    private final static int MAX_POOLED_PARSE_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final static ThreadLocal<byte[]> pooledParseBuffer =
+            ThreadLocal.withInitial(() -> new byte[PARSE_BUFFER_SIZE]);
+
+    // Shared by all the callers in the JVM, it only delays retries of async calls,
+    // the retried attempts run on the callback executor
+    private final static ScheduledExecutorService RETRY_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(HttpCaller::newRetrySchedulerThread);
 
     private final Context context;
 
+    // Executor used to decompress and parse responses of async requests once
+    // their bodies are read, keeps OkHttp's dispatcher threads free for network io
+    private final Executor callbackExecutor;
+
+    // Optional, routes requests between hosts and receives their outcomes
+    private final HostAvailabler hostAvailabler;
+
+    // Optional, limits concurrent calls of each endpoint
+    private final AdaptiveLimiter limiter;
+
+    // Optional, receives the metrics of every attempt
+    private final MetricsCollector metrics;
+
+    // Observe the phases of every attempt
+    private final List<CallInterceptor> interceptors;
+
     public HttpCaller(Context context) {
+        this(context, null);
+    }
+
+    public HttpCaller(Context context, HostAvailabler hostAvailabler) {
         this.context = context;
+        this.hostAvailabler = hostAvailabler;
+        this.callbackExecutor = context.getCallbackExecutor();
+        this.metrics = context.getMetricsCollector();
+        this.interceptors = context.getInterceptors();
+        if (context.isAdaptiveConcurrency()) {
+            this.limiter = new AdaptiveLimiter(context.getInitialConcurrencyLimit(),
+                    context.getMaxConcurrencyLimit(), context.getMaxConcurrencyWaiters());
+        } else {
+            this.limiter = null;
+        }
+    }
+
+    private static Thread newRetrySchedulerThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "byteplus-retry-scheduler");
+        thread.setDaemon(true);
+        return thread;
     }
 
     public <Rsp extends Message, Req extends Message> Rsp doPbRequest(
@@ -46,9 +125,8 @@ public class HttpCaller {
             Req request,
             Parser<Rsp> rspParser,
             Option... opts) throws NetException, BizException {
-        byte[] reqBytes = request.toByteArray();
         String contentType = "application/x-protobuf";
-        return doRequest(url, reqBytes, rspParser, contentType, opts);
+        return doRequest(url, compressEachAttempt(pbBodyWriter(request)), rspParser, contentType, opts);
     }
 
     public <Rsp extends Message> Rsp doJsonRequest(
@@ -56,55 +134,1022 @@ public class HttpCaller {
             Object request,
             Parser<Rsp> rspParser,
             Option... opts) throws NetException, BizException {
-        byte[] reqBytes = JSON.toJSONBytes(request);
         String contentType = "application/json";
-        return doRequest(url, reqBytes, rspParser, contentType, opts);
+        return doRequest(url, compressEachAttempt(jsonBodyWriter(request)), rspParser, contentType, opts);
+    }
+
+    // Sends rows already encoded as JSON objects as a JSON array, the rows
+    // are copied into the body as is, without being parsed
+    public <Rsp extends Message> Rsp doRawJsonRequest(
+            String url,
+            List<byte[]> jsonRows,
+            Parser<Rsp> rspParser,
+            Option... opts) throws NetException, BizException {
+        String contentType = "application/json";
+        return doRequest(url, compressEachAttempt(jsonRowsBodyWriter(jsonRows)), rspParser, contentType, opts);
+    }
+
+    // Sends a body already encoded as JSON
+    public <Rsp extends Message> Rsp doRawJsonRequest(
+            String url,
+            byte[] json,
+            Parser<Rsp> rspParser,
+            Option... opts) throws NetException, BizException {
+        String contentType = "application/json";
+        return doRequest(url, compressEachAttempt(out -> out.write(json)), rspParser, contentType, opts);
+    }
+
+    // Sends the rows as a JSON array, they are pulled from the iterator and
+    // encoded into the compressed body one by one
+    public <Rsp extends Message> Rsp doJsonRequest(
+            String url,
+            Iterator<?> rows,
+            Parser<Rsp> rspParser,
+            Option... opts) throws NetException, BizException {
+        String contentType = "application/json";
+        return doRequest(url, compressedJsonRows(rows), rspParser, contentType, opts);
+    }
+
+    // Same as `doPbRequest`, but the http call is driven by OkHttp's dispatcher,
+    // and the returned future is completed with the parsed response,
+    // or exceptionally with NetException/BizException.
+    // The response body is read from the connection on the OkHttp dispatcher
+    // thread, its decompression and parsing run on the callback executor.
+    public <Rsp extends Message, Req extends Message> CompletableFuture<Rsp> doPbRequestAsync(
+            String url,
+            Req request,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/x-protobuf";
+        return doRequestAsync(url, compressEachAttempt(pbBodyWriter(request)), rspParser, contentType, false, opts);
+    }
+
+    public <Rsp extends Message> CompletableFuture<Rsp> doJsonRequestAsync(
+            String url,
+            Object request,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/json";
+        return doRequestAsync(url, compressEachAttempt(jsonBodyWriter(request)), rspParser, contentType, false, opts);
+    }
+
+    public <Rsp extends Message> CompletableFuture<Rsp> doJsonRequestAsync(
+            String url,
+            Iterator<?> rows,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/json";
+        AttemptBody body;
+        try {
+            body = compressedJsonRows(rows);
+        } catch (BizException e) {
+            CompletableFuture<Rsp> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return doRequestAsync(url, body, rspParser, contentType, false, opts);
+    }
+
+    public <Rsp extends Message> CompletableFuture<Rsp> doRawJsonRequestAsync(
+            String url,
+            List<byte[]> jsonRows,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/json";
+        return doRequestAsync(url, compressEachAttempt(jsonRowsBodyWriter(jsonRows)),
+                rspParser, contentType, false, opts);
+    }
+
+    public <Rsp extends Message> CompletableFuture<Rsp> doRawJsonRequestAsync(
+            String url,
+            byte[] json,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/json";
+        return doRequestAsync(url, compressEachAttempt(out -> out.write(json)), rspParser, contentType, false, opts);
+    }
+
+    // Same as `doPbRequest`, but hedged according to the context's HedgePolicy.
+    // Hedged calls are always driven by OkHttp's dispatcher, even the sync ones,
+    // so `maxRequestsPerHost` bounds them
+    public <Rsp extends Message, Req extends Message> Rsp doPbRequestHedged(
+            String url,
+            Req request,
+            Parser<Rsp> rspParser,
+            Option... opts) throws NetException, BizException {
+        if (!isHedgeable()) {
+            return doPbRequest(url, request, rspParser, opts);
+        }
+        CompletableFuture<Rsp> future = doPbRequestHedgedAsync(url, request, rspParser, opts);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new BizException("interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetException) {
+                throw (NetException) cause;
+            }
+            if (cause instanceof BizException) {
+                throw (BizException) cause;
+            }
+            throw new BizException(cause.toString());
+        }
+    }
+
+    public <Rsp extends Message, Req extends Message> CompletableFuture<Rsp> doPbRequestHedgedAsync(
+            String url,
+            Req request,
+            Parser<Rsp> rspParser,
+            Option... opts) {
+        String contentType = "application/x-protobuf";
+        return doRequestAsync(url, compressEachAttempt(pbBodyWriter(request)),
+                rspParser, contentType, isHedgeable(), opts);
+    }
+
+    private boolean isHedgeable() {
+        return Objects.nonNull(context.getHedgePolicy())
+                && Objects.nonNull(hostAvailabler) && context.getHosts().size() > 1;
+    }
+
+    // The stages of a request, encoding, signing and parsing, are package
+    // private, so the benchmarks in the benchmark module can call them
+    BodyWriter pbBodyWriter(Message request) {
+        if (request.getSerializedSize() == 0) {
+            return null;
+        }
+        return request::writeTo;
+    }
+
+    // Collections are encoded element by element into the compressed stream,
+    // so the whole uncompressed request is never held in memory
+    BodyWriter jsonBodyWriter(Object request) {
+        if (request instanceof Collection) {
+            return out -> writeJsonArray(out, ((Collection<?>) request).iterator());
+        }
+        return out -> out.write(JSON.toJSONBytes(request));
+    }
+
+    private void writeJsonArray(OutputStream out, Iterator<?> elements) throws IOException {
+        out.write('[');
+        boolean first = true;
+        while (elements.hasNext()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            JSON.writeJSONString(out, elements.next());
+        }
+        out.write(']');
+    }
+
+    // Encodes and compresses the rows right away, as an iterator can only be
+    // read once, the attempts of the request share the compressed body
+    private AttemptBody compressedJsonRows(Iterator<?> rows) throws BizException {
+        try {
+            return gzipCompress(out -> writeJsonArray(out, rows), null);
+        } catch (IOException | RuntimeException e) {
+            log.error("[ByteplusSDK] encode http request body error {}", e.getMessage());
+            throw new BizException("encode request fail, " + e.getMessage());
+        }
+    }
+
+    // The body is written and compressed again by every attempt, so the
+    // uncompressed request is the only copy held between attempts
+    private AttemptBody compressEachAttempt(BodyWriter bodyWriter) {
+        return digest -> gzipCompress(bodyWriter, digest);
+    }
+
+    private BodyWriter jsonRowsBodyWriter(List<byte[]> jsonRows) {
+        return out -> {
+            out.write('[');
+            for (int i = 0; i < jsonRows.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(jsonRows.get(i));
+            }
+            out.write(']');
+        };
     }
 
     private <Rsp extends Message> Rsp doRequest(String url,
-                                                byte[] reqBytes,
+                                                AttemptBody body,
                                                 Parser<Rsp> rspParser,
                                                 String contentType,
                                                 Option... opts) throws NetException, BizException {
-        reqBytes = gzipCompress(reqBytes);
         Options options = Option.conv2Options(opts);
-        Headers headers = buildHeaders(options, reqBytes, contentType);
-        url = buildUrlWithQueries(options, url);
-        byte[] rspBytes = doHttpRequest(url, headers, reqBytes, options.getTimeout());
+        // all the attempts share one request id, so the server can deduplicate them
+        fillRequestId(options);
+        String urlWithQueries = buildUrlWithQueries(options, url);
+        for (int attempt = 1; ; attempt++) {
+            String attemptUrl = routeUrl(urlWithQueries);
+            Rsp rsp;
+            try {
+                rsp = doAttempt(attemptUrl, body, rspParser, contentType, options);
+            } catch (NetException e) {
+                Duration backoff = retryBackoff(attempt, options, attemptUrl, e.getMessage());
+                if (Objects.isNull(backoff)) {
+                    throw e;
+                }
+                sleepBeforeRetry(backoff);
+                continue;
+            }
+            int code = ResponseStatus.codeOf(rsp);
+            if (isRetryableCode(code)) {
+                Duration backoff = retryBackoff(attempt, options, attemptUrl, "status code " + code);
+                if (Objects.nonNull(backoff)) {
+                    sleepBeforeRetry(backoff);
+                    continue;
+                }
+                return rsp;
+            }
+            return onNonRetryableResponse(rsp, code, attempt);
+        }
+    }
+
+    private <Rsp extends Message> Rsp doAttempt(String url,
+                                                AttemptBody body,
+                                                Parser<Rsp> rspParser,
+                                                String contentType,
+                                                Options options) throws NetException, BizException {
+        CallInterceptor.Attempt attempt = newAttempt(url, options);
         try {
-            return rspParser.parseFrom(rspBytes);
-        } catch (InvalidProtocolBufferException e) {
-            log.error("[ByteplusSDK]parse response fail, url:{} err:{} ", url, e.getMessage());
-            throw new BizException("parse response fail");
+            return doAttempt(url, body, rspParser, contentType, options, attempt);
+        } catch (NetException | BizException | RuntimeException e) {
+            onAttemptFailure(attempt, e);
+            throw e;
+        }
+    }
+
+    private <Rsp extends Message> Rsp doAttempt(String url,
+                                                AttemptBody body,
+                                                Parser<Rsp> rspParser,
+                                                String contentType,
+                                                Options options,
+                                                CallInterceptor.Attempt attempt) throws NetException, BizException {
+        // fail fast before waiting for the concurrency limit
+        CircuitBreaker.Ticket ticket = acquireTicket(url);
+        CircuitBreaker.Result result = CircuitBreaker.Result.IGNORED;
+        AdaptiveLimiter.Permit permit = null;
+        AdaptiveLimiter.Outcome outcome = AdaptiveLimiter.Outcome.IGNORED;
+        try {
+            permit = acquirePermit(url, options);
+            Call call = newCall(url, body, contentType, options, attempt);
+            String host = hostOf(url);
+            boolean hostOk = false;
+            long start = System.nanoTime();
+            onHostRequest(host);
+            try (Response response = call.execute()) {
+                hostOk = isHostOk(response);
+                outcome = outcomeOf(response);
+                result = hostOk ? CircuitBreaker.Result.IGNORED : CircuitBreaker.Result.FAILURE;
+                onAttemptResponse(attempt, response);
+                Rsp rsp = parseResponse(url, response, rspParser);
+                onAttemptParsed(attempt, rsp);
+                outcome = outcomeOf(rsp);
+                result = breakerResultOf(rsp);
+                return rsp;
+            } catch (IOException e) {
+                hostOk = false;
+                outcome = outcomeOf(e);
+                result = CircuitBreaker.Result.FAILURE;
+                throwIOException(url, e, start);
+                return null;
+            } finally {
+                onHostResponse(host, hostOk);
+                log.debug("[ByteplusSDK] http url:{}, cost:{}ms", url, millisSince(start));
+                recordLatency(url, start);
+            }
+        } finally {
+            releasePermit(permit, outcome);
+            releaseTicket(ticket, result);
+        }
+    }
+
+    private <Rsp extends Message> CompletableFuture<Rsp> doRequestAsync(String url,
+                                                                        AttemptBody body,
+                                                                        Parser<Rsp> rspParser,
+                                                                        String contentType,
+                                                                        boolean hedged,
+                                                                        Option... opts) {
+        Options options = Option.conv2Options(opts);
+        fillRequestId(options);
+        String urlWithQueries = buildUrlWithQueries(options, url);
+        CompletableFuture<Rsp> future = new CompletableFuture<>();
+        attemptAsync(future, urlWithQueries, body, rspParser, contentType, options, hedged, 1);
+        return future;
+    }
+
+    private <Rsp extends Message> void attemptAsync(CompletableFuture<Rsp> future,
+                                                    String urlWithQueries,
+                                                    AttemptBody body,
+                                                    Parser<Rsp> rspParser,
+                                                    String contentType,
+                                                    Options options,
+                                                    boolean hedged,
+                                                    int attempt) {
+        if (future.isDone()) {
+            return;
+        }
+        String attemptUrl = routeUrl(urlWithQueries);
+        CompletableFuture<Rsp> attemptFuture = hedged ?
+                doHedgedAttemptAsync(attemptUrl, body, rspParser, contentType, options) :
+                doAttemptAsync(attemptUrl, body, rspParser, contentType, options);
+        // cancel the attempt if the caller gives up waiting
+        future.whenComplete((rsp, e) -> {
+            if (e instanceof CancellationException) {
+                attemptFuture.cancel(false);
+            }
+        });
+        attemptFuture.whenComplete((rsp, e) -> {
+            Duration backoff;
+            if (Objects.nonNull(e)) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                backoff = cause instanceof NetException ?
+                        retryBackoff(attempt, options, attemptUrl, cause.getMessage()) : null;
+                if (Objects.isNull(backoff)) {
+                    future.completeExceptionally(cause);
+                    return;
+                }
+            } else {
+                int code = ResponseStatus.codeOf(rsp);
+                if (!isRetryableCode(code)) {
+                    future.complete(onNonRetryableResponse(rsp, code, attempt));
+                    return;
+                }
+                backoff = retryBackoff(attempt, options, attemptUrl, "status code " + code);
+                if (Objects.isNull(backoff)) {
+                    future.complete(rsp);
+                    return;
+                }
+            }
+            Runnable retry = () -> attemptAsync(future, urlWithQueries, body,
+                    rspParser, contentType, options, hedged, attempt + 1);
+            RETRY_SCHEDULER.schedule(() -> {
+                try {
+                    callbackExecutor.execute(retry);
+                } catch (RejectedExecutionException ex) {
+                    future.completeExceptionally(new BizException(ex.toString()));
+                }
+            }, backoff.toNanos(), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    // Sends the attempt to `url`, and when it is not answered within the hedge delay,
+    // sends a copy to the next healthy host. The first successful answer wins,
+    // the other call is cancelled. If both fail, the last failure is returned.
+    private <Rsp extends Message> CompletableFuture<Rsp> doHedgedAttemptAsync(String url,
+                                                                              AttemptBody body,
+                                                                              Parser<Rsp> rspParser,
+                                                                              String contentType,
+                                                                              Options options) {
+        HedgePolicy hedgePolicy = context.getHedgePolicy();
+        long start = System.nanoTime();
+        CompletableFuture<Rsp> result = new CompletableFuture<>();
+        List<CompletableFuture<Rsp>> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        BiConsumer<Rsp, Throwable> onCallDone = (rsp, e) -> {
+            boolean success = Objects.isNull(e) && !isRetryableCode(ResponseStatus.codeOf(rsp));
+            if (success) {
+                if (result.complete(rsp)) {
+                    hedgePolicy.recordLatency(System.nanoTime() - start);
+                }
+                return;
+            }
+            if (running.decrementAndGet() > 0) {
+                // wait for the other call
+                return;
+            }
+            if (Objects.nonNull(e)) {
+                result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                result.complete(rsp);
+            }
+        };
+        CompletableFuture<Rsp> primary = doAttemptAsync(url, body, rspParser, contentType, options);
+        calls.add(primary);
+        Duration delay = hedgePolicy.delay();
+        if (Objects.nonNull(delay)) {
+            ScheduledFuture<?> hedgeTask = RETRY_SCHEDULER.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                String hedgeHost = hostAvailabler.selectHedgeHost(hostOf(url));
+                if (Objects.isNull(hedgeHost) || !hedgePolicy.tryHedge()) {
+                    return;
+                }
+                running.incrementAndGet();
+                log.debug("[ByteplusSDK] hedge request to {}, url:{} requestId:{}",
+                        hedgeHost, url, options.getRequestId());
+                try {
+                    callbackExecutor.execute(() -> {
+                        CompletableFuture<Rsp> hedge = doAttemptAsync(replaceHost(url, hedgeHost),
+                                body, rspParser, contentType, options);
+                        calls.add(hedge);
+                        if (result.isDone()) {
+                            hedge.cancel(false);
+                        }
+                        hedge.whenComplete(onCallDone);
+                    });
+                } catch (RejectedExecutionException e) {
+                    onCallDone.accept(null, new BizException(e.toString()));
+                }
+            }, delay.toNanos(), TimeUnit.NANOSECONDS);
+            result.whenComplete((rsp, e) -> hedgeTask.cancel(false));
+        }
+        primary.whenComplete(onCallDone);
+        // cancel the loser, or both if the caller gives up
+        result.whenComplete((rsp, e) -> calls.forEach(call -> call.cancel(false)));
+        return result;
+    }
+
+    private <Rsp extends Message> CompletableFuture<Rsp> doAttemptAsync(String fullUrl,
+                                                                        AttemptBody body,
+                                                                        Parser<Rsp> rspParser,
+                                                                        String contentType,
+                                                                        Options options) {
+        CompletableFuture<Rsp> future = new CompletableFuture<>();
+        CallInterceptor.Attempt attempt = newAttempt(fullUrl, options);
+        if (Objects.nonNull(attempt)) {
+            future.whenComplete((rsp, e) -> {
+                if (Objects.nonNull(e) && !future.isCancelled()) {
+                    onAttemptFailure(attempt, e instanceof CompletionException ? e.getCause() : e);
+                }
+            });
+        }
+        CircuitBreaker.Ticket ticket;
+        try {
+            ticket = acquireTicket(fullUrl);
+        } catch (CircuitBreakerOpenException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        // covers the attempts cancelled before being sent, the outcomes
+        // of sent attempts are released before completing the future
+        future.whenComplete((rsp, e) -> releaseTicket(ticket, CircuitBreaker.Result.IGNORED));
+        if (Objects.isNull(limiter)) {
+            sendAsync(future, fullUrl, body, rspParser, contentType, options, null, ticket, attempt);
+            return future;
+        }
+        String endpoint = endpointOf(fullUrl);
+        CompletableFuture<AdaptiveLimiter.Permit> permitFuture = limiter.acquire(endpoint);
+        // stop waiting for the permit if the caller gives up
+        future.whenComplete((rsp, e) -> {
+            if (e instanceof CancellationException) {
+                permitFuture.cancel(false);
+            }
+        });
+        // waiting is bounded by the timeout of the call, the same as sync calls
+        Duration maxWait = maxWaitOf(options);
+        if (Objects.nonNull(maxWait)) {
+            failAfter(permitFuture, maxWait, "timeout waiting for concurrency limit of " + endpoint);
+        }
+        permitFuture.whenComplete((permit, e) -> {
+            if (Objects.nonNull(e)) {
+                future.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                return;
+            }
+            sendAsync(future, fullUrl, body, rspParser, contentType, options, permit, ticket, attempt);
+        });
+        return future;
+    }
+
+    private <Rsp extends Message> void sendAsync(CompletableFuture<Rsp> future,
+                                                 String url,
+                                                 AttemptBody body,
+                                                 Parser<Rsp> rspParser,
+                                                 String contentType,
+                                                 Options options,
+                                                 AdaptiveLimiter.Permit permit,
+                                                 CircuitBreaker.Ticket ticket,
+                                                 CallInterceptor.Attempt attempt) {
+        if (future.isDone()) {
+            releasePermit(permit, AdaptiveLimiter.Outcome.IGNORED);
+            return;
+        }
+        Call call;
+        try {
+            call = newCall(url, body, contentType, options, attempt);
+        } catch (NetException | BizException | RuntimeException e) {
+            releasePermit(permit, AdaptiveLimiter.Outcome.IGNORED);
+            future.completeExceptionally(e);
+            return;
+        }
+        // cancel the http call if the caller gives up waiting
+        future.whenComplete((rsp, e) -> {
+            if (e instanceof CancellationException) {
+                call.cancel();
+            }
+        });
+        String host = hostOf(url);
+        long start = System.nanoTime();
+        onHostRequest(host);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // a call cancelled by its caller, e.g. the loser of a hedged
+                // request, says nothing about the host. `call.isCanceled()`
+                // can not tell it, as OkHttp also cancels calls timing out
+                boolean canceled = future.isCancelled();
+                if (canceled) {
+                    onHostCancel(host);
+                } else {
+                    onHostResponse(host, false);
+                }
+                releasePermit(permit, canceled ? AdaptiveLimiter.Outcome.IGNORED : outcomeOf(e));
+                releaseTicket(ticket, canceled ? CircuitBreaker.Result.IGNORED : CircuitBreaker.Result.FAILURE);
+                log.debug("[ByteplusSDK] http url:{}, cost:{}ms", url, millisSince(start));
+                if (canceled) {
+                    future.completeExceptionally(new BizException("call canceled"));
+                    return;
+                }
+                recordLatency(url, start);
+                completeWithIOException(future, url, e, start);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // the callback executor may be shared with the application, e.g.
+                // the common pool in default, so it never blocks on the connection
+                Response bufferedResponse;
+                try {
+                    bufferedResponse = readBody(response);
+                } catch (IOException e) {
+                    onFailure(call, new ResponseReadException(e));
+                    return;
+                }
+                onHostResponse(host, isHostOk(bufferedResponse));
+                log.debug("[ByteplusSDK] http url:{}, cost:{}ms", url, millisSince(start));
+                onAttemptResponse(attempt, bufferedResponse);
+                try {
+                    callbackExecutor.execute(() -> completeWithResponse(future, url,
+                            bufferedResponse, rspParser, permit, ticket, start, attempt));
+                } catch (RejectedExecutionException e) {
+                    releasePermit(permit, AdaptiveLimiter.Outcome.IGNORED);
+                    future.completeExceptionally(new BizException(e.toString()));
+                }
+            }
+        });
+    }
+
+    // Reads the whole body from the connection into memory and closes the
+    // response, the returned one holds the body, as received on the wire
+    private Response readBody(Response response) throws IOException {
+        try (ResponseBody body = response.body()) {
+            if (Objects.isNull(body)) {
+                return response;
+            }
+            Buffer buffer = new Buffer();
+            body.source().readAll(buffer);
+            return response.newBuilder()
+                    .body(ResponseBody.create(buffer, body.contentType(), buffer.size()))
+                    .build();
+        }
+    }
+
+    private <Rsp extends Message> void completeWithResponse(CompletableFuture<Rsp> future,
+                                                            String url,
+                                                            Response response,
+                                                            Parser<Rsp> rspParser,
+                                                            AdaptiveLimiter.Permit permit,
+                                                            CircuitBreaker.Ticket ticket,
+                                                            long start,
+                                                            CallInterceptor.Attempt attempt) {
+        AdaptiveLimiter.Outcome outcome = outcomeOf(response);
+        CircuitBreaker.Result result = isHostOk(response) ?
+                CircuitBreaker.Result.IGNORED : CircuitBreaker.Result.FAILURE;
+        try (Response httpRsp = response) {
+            Rsp rsp = parseResponse(url, httpRsp, rspParser);
+            onAttemptParsed(attempt, rsp);
+            releasePermit(permit, outcomeOf(rsp));
+            releaseTicket(ticket, breakerResultOf(rsp));
+            future.complete(rsp);
+        } catch (IOException e) {
+            releasePermit(permit, outcomeOf(e));
+            releaseTicket(ticket, CircuitBreaker.Result.FAILURE);
+            completeWithIOException(future, url, e, start);
+        } catch (Throwable e) {
+            releasePermit(permit, outcome);
+            releaseTicket(ticket, result);
+            future.completeExceptionally(e);
+        } finally {
+            recordLatency(url, start);
+        }
+    }
+
+    private CircuitBreaker.Ticket acquireTicket(String url) throws CircuitBreakerOpenException {
+        CircuitBreaker circuitBreaker = context.getCircuitBreaker();
+        if (Objects.isNull(circuitBreaker)) {
+            return null;
+        }
+        return circuitBreaker.acquire(endpointOf(url));
+    }
+
+    private void releaseTicket(CircuitBreaker.Ticket ticket, CircuitBreaker.Result result) {
+        if (Objects.nonNull(ticket)) {
+            ticket.release(result);
+        }
+    }
+
+    private CircuitBreaker.Result breakerResultOf(Message response) {
+        if (ResponseStatus.codeOf(response) >= 500) {
+            return CircuitBreaker.Result.FAILURE;
+        }
+        return CircuitBreaker.Result.SUCCESS;
+    }
+
+    private void fillRequestId(Options options) {
+        if (Objects.isNull(options.getRequestId())) {
+            options.setRequestId(context.getRequestIdGenerator().nextId());
+        }
+    }
+
+    private boolean isRetryableCode(int code) {
+        return code == STATUS_CODE_TOO_MANY_REQUEST || code == STATUS_CODE_OPERATION_LOSS;
+    }
+
+    // Returns the backoff before the next attempt of a call whose attempt failed
+    // with a retryable error, or null if the call should not be retried
+    private Duration retryBackoff(int attempt, Options options, String url, String reason) {
+        RetryPolicy retryPolicy = context.getRetryPolicy();
+        if (Objects.isNull(retryPolicy)) {
+            return null;
+        }
+        boolean budgetAllows = retryPolicy.onRetryableFailure();
+        if (attempt >= retryPolicy.getMaxAttempts()) {
+            return null;
+        }
+        if (!budgetAllows) {
+            log.warn("[ByteplusSDK] retry budget is exhausted, give up retrying, url:{} requestId:{}",
+                    url, options.getRequestId());
+            return null;
+        }
+        Duration backoff = retryPolicy.backoff(attempt);
+        Instant deadline = options.getDeadline();
+        if (Objects.nonNull(deadline) && Instant.now().plus(backoff).isAfter(deadline)) {
+            return null;
+        }
+        log.warn("[ByteplusSDK] retry request, url:{} requestId:{} attempt:{} reason:{} backoff:{}ms",
+                url, options.getRequestId(), attempt, reason, backoff.toMillis());
+        if (Objects.nonNull(metrics)) {
+            metrics.recordRetry(endpointOf(url));
+        }
+        return backoff;
+    }
+
+    // A retried attempt answered STATUS_CODE_IDEMPOTENT means
+    // a former attempt of the same call already succeeded
+    private <Rsp extends Message> Rsp onNonRetryableResponse(Rsp rsp, int code, int attempt) {
+        RetryPolicy retryPolicy = context.getRetryPolicy();
+        if (Objects.isNull(retryPolicy)) {
+            return rsp;
+        }
+        retryPolicy.onNonRetryableOutcome();
+        if (attempt > 1 && code == STATUS_CODE_IDEMPOTENT) {
+            return ResponseStatus.withCode(rsp, STATUS_CODE_SUCCESS);
+        }
+        return rsp;
+    }
+
+    private void sleepBeforeRetry(Duration backoff) throws BizException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoff.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException("interrupted while waiting to retry");
+        }
+    }
+
+    // Waits until the endpoint of the url is below its concurrency limit.
+    // Waiting is bounded by the timeout of the call, and counts against its deadline
+    private AdaptiveLimiter.Permit acquirePermit(String url, Options options) throws NetException, BizException {
+        if (Objects.isNull(limiter)) {
+            return null;
+        }
+        String endpoint = endpointOf(url);
+        CompletableFuture<AdaptiveLimiter.Permit> future = limiter.acquire(endpoint);
+        Duration maxWait = maxWaitOf(options);
+        try {
+            if (Objects.isNull(maxWait)) {
+                return future.get();
+            }
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the permit may be granted right before giving up
+            if (future.cancel(false)) {
+                throw new NetException("timeout waiting for concurrency limit of " + endpoint);
+            }
+            return future.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!future.cancel(false)) {
+                releasePermit(future.join(), AdaptiveLimiter.Outcome.IGNORED);
+            }
+            throw new BizException("interrupted while waiting for concurrency limit of " + endpoint);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NetException) {
+                throw (NetException) e.getCause();
+            }
+            throw new BizException(e.getCause().toString());
+        }
+    }
+
+    // The timeout of the call made with the options, or the time left before
+    // its deadline if sooner, null if the call has neither
+    public static Duration maxWaitOf(Option... opts) {
+        return maxWaitOf(Option.conv2Options(opts));
+    }
+
+    // Completes the future with NetException if it is not completed within the timeout
+    public static void failAfter(CompletableFuture<?> future, Duration timeout, String message) {
+        if (future.isDone()) {
+            return;
+        }
+        ScheduledFuture<?> timeoutTask = RETRY_SCHEDULER.schedule(
+                () -> future.completeExceptionally(new NetException(message)),
+                timeout.toNanos(), TimeUnit.NANOSECONDS);
+        future.whenComplete((value, e) -> timeoutTask.cancel(false));
+    }
+
+    private static Duration maxWaitOf(Options options) {
+        Duration maxWait = options.getTimeout();
+        if (Objects.nonNull(options.getDeadline())) {
+            maxWait = minTimeout(maxWait, Duration.between(Instant.now(), options.getDeadline()));
+        }
+        if (Objects.isNull(maxWait) || maxWait.isZero()) {
+            return null;
+        }
+        return maxWait;
+    }
+
+    private void releasePermit(AdaptiveLimiter.Permit permit, AdaptiveLimiter.Outcome outcome) {
+        if (Objects.nonNull(permit)) {
+            permit.release(outcome);
+        }
+    }
+
+    // The path of the url identifies the endpoint, no matter which host serves it
+    private String endpointOf(String url) {
+        int hostStart = url.indexOf("://") + 3;
+        int pathStart = url.indexOf('/', hostStart);
+        if (pathStart < 0) {
+            return "/";
+        }
+        int queryStart = url.indexOf('?', pathStart);
+        return queryStart < 0 ? url.substring(pathStart) : url.substring(pathStart, queryStart);
+    }
+
+    private AdaptiveLimiter.Outcome outcomeOf(Response response) {
+        if (response.code() == STATUS_CODE_TOO_MANY_REQUEST) {
+            return AdaptiveLimiter.Outcome.DROPPED;
+        }
+        return AdaptiveLimiter.Outcome.IGNORED;
+    }
+
+    private AdaptiveLimiter.Outcome outcomeOf(Message response) {
+        int code = ResponseStatus.codeOf(response);
+        if (code == STATUS_CODE_TOO_MANY_REQUEST) {
+            return AdaptiveLimiter.Outcome.DROPPED;
+        }
+        if (code >= 500) {
+            return AdaptiveLimiter.Outcome.IGNORED;
+        }
+        return AdaptiveLimiter.Outcome.SUCCESS;
+    }
+
+    private AdaptiveLimiter.Outcome outcomeOf(IOException e) {
+        return isTimeout(e) ? AdaptiveLimiter.Outcome.DROPPED : AdaptiveLimiter.Outcome.IGNORED;
+    }
+
+    // With POWER_OF_TWO_CHOICES every request picks its own host,
+    // otherwise the url already points to the current host
+    private String routeUrl(String url) {
+        if (Objects.isNull(hostAvailabler)
+                || context.getHostSelectStrategy() != HostSelectStrategy.POWER_OF_TWO_CHOICES) {
+            return url;
+        }
+        return replaceHost(url, hostAvailabler.selectHost());
+    }
+
+    private String replaceHost(String url, String host) {
+        int hostStart = url.indexOf("://") + 3;
+        int hostEnd = url.indexOf('/', hostStart);
+        return url.substring(0, hostStart) + host + url.substring(hostEnd);
+    }
+
+    // Urls are built as "schema://host/path", the host is same as
+    // the one configured in context, including the port if any
+    private String hostOf(String url) {
+        int hostStart = url.indexOf("://") + 3;
+        int hostEnd = url.indexOf('/', hostStart);
+        return hostEnd < 0 ? url.substring(hostStart) : url.substring(hostStart, hostEnd);
+    }
+
+    private boolean isHostOk(Response response) {
+        return response.code() < 500;
+    }
+
+    private void onHostRequest(String host) {
+        if (Objects.nonNull(hostAvailabler)) {
+            hostAvailabler.onRequest(host);
+        }
+    }
+
+    private void onHostResponse(String host, boolean hostOk) {
+        if (Objects.nonNull(hostAvailabler)) {
+            hostAvailabler.onResponse(host, hostOk);
+        }
+    }
+
+    private void onHostCancel(String host) {
+        if (Objects.nonNull(hostAvailabler)) {
+            hostAvailabler.onCancel(host);
         }
     }
 
-    private byte[] gzipCompress(byte[] bodyBytes) {
-        if (bodyBytes == null || bodyBytes.length == 0) {
-            return new byte[0];
+    private Call newCall(String url,
+                         AttemptBody body,
+                         String contentType,
+                         Options options,
+                         CallInterceptor.Attempt attempt) throws NetException, BizException {
+        long queueNanos = lapNanos(attempt);
+        // Options are shared by all the attempts of a call, hedged ones included,
+        // so the timeouts bounded by the deadline are kept for this attempt only
+        Duration timeout = options.getTimeout();
+        Duration serverTimeout = options.getServerTimeout();
+        Duration remaining = remainingBeforeDeadline(options);
+        if (Objects.nonNull(remaining)) {
+            timeout = minTimeout(timeout, remaining);
+            serverTimeout = minTimeout(serverTimeout, remaining);
         }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        GZIPOutputStream gzip;
+        // The signature covers the compressed body, it is teed from
+        // the compressed bytes while they are produced
+        MessageDigest digest = newSignatureDigest();
+        CompressedBody compressed;
         try {
-            gzip = new GZIPOutputStream(out);
-            gzip.write(bodyBytes);
-            gzip.finish();
-            gzip.close();
+            compressed = body.compress(digest);
         } catch (IOException e) {
-            log.error("[ByteplusSDK] gzip compress http request bytes error {}", e.getMessage());
-            return bodyBytes;
+            log.error("[ByteplusSDK] gzip compress http request body error {}", e.getMessage());
+            throw new BizException("compress request fail");
+        }
+        long compressedBytes = compressed.body.size();
+        if (Objects.nonNull(metrics)) {
+            metrics.recordRequestBytes(endpointOf(url), compressed.uncompressedBytes, compressedBytes);
+        }
+        if (Objects.nonNull(attempt)) {
+            long costNanos = lapNanos(attempt);
+            intercept(attempt, interceptor ->
+                    interceptor.onEncode(attempt, compressed.uncompressedBytes, compressedBytes, costNanos));
+        }
+        Headers headers = buildHeaders(options, serverTimeout, digest, contentType);
+        if (Objects.nonNull(attempt)) {
+            long costNanos = lapNanos(attempt);
+            intercept(attempt, interceptor -> interceptor.onSign(attempt, costNanos));
+            intercept(attempt, interceptor -> interceptor.onSend(attempt, queueNanos));
+            headers = withAttemptHeaders(headers, attempt);
+            lapNanos(attempt);
+        }
+        Request request = new Request.Builder()
+                .url(url)
+                .headers(headers)
+                .post(new GzipBufferBody(compressed.body))
+                .build();
+        Call call = context.getHttpClient().newCall(request);
+        // Timeout is applied to this call only, all the calls
+        // share one client, so they share its connection pool
+        if (Objects.nonNull(timeout) && !timeout.isZero()) {
+            call.timeout().timeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    // The remaining time before the deadline, null if there is no deadline.
+    // It bounds both the client side timeout and the server side one sent
+    // with "Timeout-Millis"
+    private Duration remainingBeforeDeadline(Options options) throws NetException {
+        if (Objects.isNull(options.getDeadline())) {
+            return null;
+        }
+        Duration remaining = Duration.between(Instant.now(), options.getDeadline());
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new NetException("deadline exceeded before sending request");
+        }
+        return remaining;
+    }
+
+    private static Duration minTimeout(Duration timeout, Duration remaining) {
+        if (Objects.isNull(timeout) || timeout.isZero() || timeout.compareTo(remaining) > 0) {
+            return remaining;
+        }
+        return timeout;
+    }
+
+    // Writes the request message straight through the deflater into okio's
+    // pooled segments, the message is never materialized as an uncompressed
+    // byte array, and the compressed bytes are never copied again before
+    // reaching the socket.
+    CompressedBody gzipCompress(BodyWriter bodyWriter, MessageDigest digest) throws IOException {
+        Buffer buffer = new Buffer();
+        if (Objects.isNull(bodyWriter)) {
+            return new CompressedBody(buffer, 0);
+        }
+        OutputStream out = buffer.outputStream();
+        if (Objects.nonNull(digest)) {
+            out = new DigestOutputStream(out, digest);
+        }
+        CountingOutputStream counter;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+            counter = new CountingOutputStream(gzip);
+            bodyWriter.writeTo(counter);
+        }
+        return new CompressedBody(buffer, counter.count);
+    }
+
+    private void recordLatency(String url, long startNanos) {
+        if (Objects.nonNull(metrics)) {
+            metrics.recordLatency(endpointOf(url), System.nanoTime() - startNanos);
+        }
+    }
+
+    private long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // Returns null if there is no interceptor, then the phases are not timed
+    private CallInterceptor.Attempt newAttempt(String url, Options options) {
+        if (interceptors.isEmpty()) {
+            return null;
+        }
+        return new CallInterceptor.Attempt(url, endpointOf(url), options.getRequestId());
+    }
+
+    // Returns the time since the last lap of the attempt, the first lap counts from its creation
+    private long lapNanos(CallInterceptor.Attempt attempt) {
+        if (Objects.isNull(attempt)) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long lap = now - attempt.lapStartNanos;
+        attempt.lapStartNanos = now;
+        return lap;
+    }
+
+    private void onAttemptResponse(CallInterceptor.Attempt attempt, Response response) {
+        if (Objects.nonNull(attempt)) {
+            long networkNanos = lapNanos(attempt);
+            intercept(attempt, interceptor -> interceptor.onResponse(attempt, response.code(), networkNanos));
+        }
+    }
+
+    private void onAttemptParsed(CallInterceptor.Attempt attempt, Message rsp) {
+        if (Objects.nonNull(attempt)) {
+            long costNanos = lapNanos(attempt);
+            int code = ResponseStatus.codeOf(rsp);
+            intercept(attempt, interceptor -> interceptor.onParse(attempt, code, costNanos));
         }
-        return out.toByteArray();
     }
 
-    private Headers buildHeaders(Options options, byte[] bodyBytes, String contentType) {
+    private void onAttemptFailure(CallInterceptor.Attempt attempt, Throwable e) {
+        if (Objects.nonNull(attempt)) {
+            intercept(attempt, interceptor -> interceptor.onFailure(attempt, e));
+        }
+    }
+
+    private void intercept(CallInterceptor.Attempt attempt, Consumer<CallInterceptor> callback) {
+        for (CallInterceptor interceptor : interceptors) {
+            try {
+                callback.accept(interceptor);
+            } catch (RuntimeException e) {
+                log.warn("[ByteplusSDK] interceptor throws exception, url:{} err:{}", attempt.getUrl(), e.toString());
+            }
+        }
+    }
+
+    // Headers set by interceptors never overwrite the ones already set
+    private Headers withAttemptHeaders(Headers headers, CallInterceptor.Attempt attempt) {
+        if (attempt.getHeaders().isEmpty()) {
+            return headers;
+        }
+        Headers.Builder builder = headers.newBuilder();
+        attempt.getHeaders().forEach((name, value) -> {
+            if (Objects.isNull(headers.get(name))) {
+                builder.set(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    Headers buildHeaders(Options options, Duration serverTimeout, MessageDigest bodyDigest, String contentType) {
         Headers.Builder builder = new Headers.Builder();
         builder.set("Content-Encoding", "gzip");
         builder.set("Accept-Encoding", "gzip");
         builder.set("Content-Type", contentType);
         builder.set("Accept", "application/x-protobuf");
-        withOptionHeaders(builder, options);
-        withAuthHeaders(builder, bodyBytes);
+        withOptionHeaders(builder, options, serverTimeout);
+        withAuthHeaders(builder, bodyDigest);
         return builder.build();
     }
 
@@ -130,40 +1175,34 @@ public class HttpCaller {
         }
     }
 
-    private void withOptionHeaders(Headers.Builder builder, Options options) {
+    private void withOptionHeaders(Headers.Builder builder, Options options, Duration serverTimeout) {
         if (Objects.nonNull(options.getHeaders())) {
             options.getHeaders().forEach(builder::set);
         }
-        if (Objects.isNull(options.getRequestId())) {
-            String requestId = UUID.randomUUID().toString();
-            log.info("[ByteplusSDK] use requestId generated by sdk: '{}' ", requestId);
-            builder.set("Request-Id", requestId);
-        } else {
-            builder.set("Request-Id", options.getRequestId());
-        }
+        builder.set("Request-Id", options.getRequestId());
         if (Objects.nonNull(options.getDataDate())) {
             builder.set("Content-Date", options.getDataDate().format(DateTimeFormatter.ISO_DATE));
         }
         if (Objects.nonNull(options.getDataIsEnd())) {
             builder.set("Content-End", options.getDataIsEnd().toString());
         }
-        if (Objects.nonNull(options.getServerTimeout())) {
-            builder.set("Timeout-Millis", options.getServerTimeout().toMillis() + "");
+        if (Objects.nonNull(serverTimeout)) {
+            builder.set("Timeout-Millis", serverTimeout.toMillis() + "");
         }
     }
 
-    private void withAuthHeaders(Headers.Builder headerBuilder, byte[] httpBody) {
+    private void withAuthHeaders(Headers.Builder headerBuilder, MessageDigest bodyDigest) {
         // Gets the second-level timestamp of the current time.
         // The server only supports the second-level timestamp.
         // The 'ts' must be the current time.
         // When current time exceeds a certain time, such as 5 seconds, of 'ts',
         // the signature will be invalid and cannot pass authentication
         String ts = "" + (System.currentTimeMillis() / 1000);
-        // Use sub string of UUID as "nonce",  too long will be wasted.
+        // Use 8 random hex digits as "nonce", too long will be wasted.
         // You can also use 'ts' as' nonce'
-        String nonce = UUID.randomUUID().toString().substring(0, 8);
+        String nonce = newNonce();
         // calculate the authentication signature
-        String signature = calSignature(httpBody, ts, nonce);
+        String signature = calSignature(bodyDigest, ts, nonce);
 
         headerBuilder.set("Tenant-Id", context.getTenantId());
         headerBuilder.set("Tenant-Ts", ts);
@@ -171,26 +1210,41 @@ public class HttpCaller {
         headerBuilder.set("Tenant-Signature", signature);
     }
 
-    private String calSignature(byte[] httpBody, String ts, String nonce) {
+    private static String newNonce() {
+        char[] chars = new char[NONCE_LENGTH];
+        TimeOrderedIdGenerator.formatHex(ThreadLocalRandom.current().nextInt(), chars, 0, NONCE_LENGTH);
+        return new String(chars);
+    }
+
+    // Returns a digest which is already fed with "token",
+    // the http body should be fed next.
+    MessageDigest newSignatureDigest() {
         MessageDigest digest;
         try {
             digest = MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException ignored) {
+            return null;
+        }
+        digest.update(context.getToken().getBytes(StandardCharsets.UTF_8));
+        return digest;
+    }
+
+    String calSignature(MessageDigest bodyDigest, String ts, String nonce) {
+        if (Objects.isNull(bodyDigest)) {
             return "";
         }
         // Splice in the order of "token", "HttpBody", "tenant_id", "ts", and "nonce".
         // The order must not be mistaken.
-        // String need to be encoded as byte arrays by UTF-8
-        digest.update(context.getToken().getBytes(StandardCharsets.UTF_8));
-        digest.update(httpBody);
-        digest.update(context.getTenantId().getBytes(StandardCharsets.UTF_8));
-        digest.update(ts.getBytes(StandardCharsets.UTF_8));
-        digest.update(nonce.getBytes(StandardCharsets.UTF_8));
+        // String need to be encoded as byte arrays by UTF-8.
+        // "token" and "HttpBody" are already fed by `newSignatureDigest` and `gzipCompress`
+        bodyDigest.update(context.getTenantId().getBytes(StandardCharsets.UTF_8));
+        bodyDigest.update(ts.getBytes(StandardCharsets.UTF_8));
+        bodyDigest.update(nonce.getBytes(StandardCharsets.UTF_8));
 
-        return bytes2Hex(digest.digest());
+        return bytes2Hex(bodyDigest.digest());
     }
 
-    private String bytes2Hex(byte[] bts) {
+    String bytes2Hex(byte[] bts) {
         StringBuilder sb = new StringBuilder();
         String hex;
         for (byte bt : bts) {
@@ -204,72 +1258,114 @@ public class HttpCaller {
     }
 
 
-    private byte[] doHttpRequest(String url,
-                                 Headers headers,
-                                 byte[] bodyBytes,
-                                 Duration timeout) throws NetException, BizException {
-
-//        log.debug("[ByteplusSDK][HTTPCaller] URL:{} Request Headers:\n{}", url, headers);
-        Request request = new Request.Builder()
-                .url(url)
-                .headers(headers)
-                .post(RequestBody.create(bodyBytes))
-                .build();
-        Call call = selectHttpClient(timeout).newCall(request);
-        LocalDateTime startTime = LocalDateTime.now();
+    <Rsp extends Message> Rsp parseResponse(String url,
+                                                    Response response,
+                                                    Parser<Rsp> rspParser) throws IOException, BizException {
+        ResponseBody rspBody = response.body();
+        if (response.code() != SUCCESS_HTTP_CODE) {
+            recordStatus(url, response.code());
+            logHttpResponse(url, response);
+            throw new BizException(response.message());
+        }
+//        log.debug("[ByteplusSDK][HTTPCaller] URL:{} Response Headers:\n{}", url, response.headers());
         try {
-            Response response = call.execute();
-            ResponseBody rspBody = response.body();
-            if (response.code() != SUCCESS_HTTP_CODE) {
-                logHttpResponse(url, response);
-                throw new BizException(response.message());
-            }
-//            log.debug("[ByteplusSDK][HTTPCaller] URL:{} Response Headers:\n{}", url, response.headers());
-            if (Objects.isNull(rspBody)) {
-                return null;
+            if (Objects.isNull(rspBody) || rspBody.contentLength() == 0) {
+                return recordResponse(url, rspParser.parseFrom(new byte[0]), 0);
+            }
+            // Parse from the connection directly, the response is never
+            // held as a whole compressed or uncompressed byte array
+            InputStream rspStream = rspBody.byteStream();
+            CountingInputStream counter = null;
+            if (Objects.nonNull(metrics)) {
+                rspStream = counter = new CountingInputStream(rspStream);
             }
             String rspEncoding = response.header("Content-Encoding");
-            if (Objects.isNull(rspEncoding) || !rspEncoding.contains("gzip")) {
-                return rspBody.bytes();
+            if (Objects.nonNull(rspEncoding) && rspEncoding.contains("gzip")) {
+                rspStream = new GZIPInputStream(rspStream, GZIP_BUFFER_SIZE);
             }
-            return gzipDecompress(rspBody.bytes(), url);
-        } catch (IOException e) {
-            if (e.getMessage().toLowerCase().contains("timeout")) {
-                log.error("[ByteplusSDK] do http request timeout, cost:{} msg:{} url:{}",
-                        Duration.between(startTime, LocalDateTime.now()).toMillis(), e, url);
-                throw new NetException(e.toString());
+            Rsp rsp;
+            if (context.isPooledParseBuffer()) {
+                rsp = parseWithPooledBuffer(rspStream, rspParser);
+            } else {
+                rsp = rspParser.parseFrom(CodedInputStream.newInstance(rspStream, PARSE_BUFFER_SIZE));
             }
-            log.error("[ByteplusSDK] do http request occur exception, msg:{} url:{}", e, url);
-            throw new BizException(e.toString());
-        } finally {
-            log.debug("[ByteplusSDK] http url:{}, cost:{}ms",
-                    url, Duration.between(startTime, LocalDateTime.now()).toMillis());
+            return recordResponse(url, rsp, Objects.isNull(counter) ? 0 : counter.count);
+        } catch (InvalidProtocolBufferException e) {
+            // the generated parsers wrap the errors of reading the body, e.g.
+            // a read timeout, a reset connection or a broken gzip stream
+            IOException cause = e.unwrapIOException();
+            if (cause != e && !(cause instanceof InvalidProtocolBufferException)) {
+                throw new ResponseReadException(cause);
+            }
+            log.error("[ByteplusSDK]parse response fail, url:{} err:{} ", url, e.getMessage());
+            throw new BizException("parse response fail");
+        } catch (IOException e) {
+            throw new ResponseReadException(e);
         }
     }
 
-    private OkHttpClient selectHttpClient(Duration timeout) {
-        if (Objects.isNull(timeout) || timeout.isZero()) {
-            return defaultHttpCli;
+    private <Rsp extends Message> Rsp recordResponse(String url, Rsp rsp, long bytes) {
+        if (Objects.nonNull(metrics)) {
+            String endpoint = endpointOf(url);
+            metrics.recordResponseBytes(endpoint, bytes);
+            metrics.recordStatus(endpoint, ResponseStatus.codeOf(rsp));
         }
-        OkHttpClient httpClient = timeoutHttpCliMap.get(timeout);
-        if (Objects.nonNull(httpClient)) {
-            return httpClient;
+        return rsp;
+    }
+
+    private void recordStatus(String url, int code) {
+        if (Objects.nonNull(metrics)) {
+            metrics.recordStatus(endpointOf(url), code);
         }
-        synchronized (HttpCaller.class) {
-            // 二次检查，防止并发导致重复进入
-            httpClient = timeoutHttpCliMap.get(timeout);
-            if (Objects.nonNull(httpClient)) {
-                return httpClient;
+    }
+
+    // Inflates the whole response into a buffer reused by the current thread,
+    // then parses it with an array backed CodedInputStream.
+    // Parsed messages copy what they need out of the buffer, so it can be reused.
+    private <Rsp extends Message> Rsp parseWithPooledBuffer(InputStream rspStream,
+                                                            Parser<Rsp> rspParser) throws IOException {
+        byte[] buffer = pooledParseBuffer.get();
+        int length = 0;
+        int n;
+        while ((n = rspStream.read(buffer, length, buffer.length - length)) >= 0) {
+            length += n;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
             }
-            httpClient = new OkHttpClient.Builder()
-                    .callTimeout(timeout)
-                    .build();
-            // 使用ab替换，减少加锁操作
-            Map<Duration, OkHttpClient> timeoutHttpCliMapTemp = new HashMap<>(timeoutHttpCliMap.size());
-            timeoutHttpCliMapTemp.putAll(timeoutHttpCliMap);
-            timeoutHttpCliMapTemp.put(timeout, httpClient);
-            timeoutHttpCliMap = timeoutHttpCliMapTemp;
-            return httpClient;
+        }
+        if (buffer.length <= MAX_POOLED_PARSE_BUFFER_SIZE) {
+            pooledParseBuffer.set(buffer);
+        }
+        return rspParser.parseFrom(CodedInputStream.newInstance(buffer, 0, length));
+    }
+
+    private void throwIOException(String url, IOException e, long start) throws NetException, BizException {
+        boolean timeout = isTimeout(e);
+        if (Objects.nonNull(metrics)) {
+            metrics.recordError(endpointOf(url), timeout);
+        }
+        if (timeout) {
+            log.error("[ByteplusSDK] do http request timeout, cost:{} msg:{} url:{}",
+                    millisSince(start), e, url);
+            throw new NetException(e.toString());
+        }
+        if (e instanceof ResponseReadException) {
+            log.error("[ByteplusSDK] read http response fail, msg:{} url:{}", e.getCause(), url);
+            throw new NetException(e.getMessage());
+        }
+        log.error("[ByteplusSDK] do http request occur exception, msg:{} url:{}", e, url);
+        throw new BizException(e.toString());
+    }
+
+    private boolean isTimeout(IOException e) {
+        return String.valueOf(e.getMessage()).toLowerCase().contains("timeout");
+    }
+
+    private void completeWithIOException(CompletableFuture<?> future, String url, IOException e, long start) {
+        try {
+            throwIOException(url, e, start);
+        } catch (NetException | BizException ex) {
+            future.completeExceptionally(ex);
         }
     }
 
@@ -284,23 +1380,125 @@ public class HttpCaller {
         }
     }
 
-    private byte[] gzipDecompress(byte[] bodyBytes, String url) {
-        if (bodyBytes == null || bodyBytes.length == 0) {
-            return new byte[0];
+    // Writes the uncompressed http body
+    interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // The body of one attempt of a request, compressed and fed to the
+    // signature digest
+    interface AttemptBody {
+        CompressedBody compress(MessageDigest digest) throws IOException;
+    }
+
+    // A body already compressed, every attempt sends a copy of it instead of
+    // writing it again
+    static class CompressedBody implements AttemptBody {
+        private final Buffer body;
+
+        private final long uncompressedBytes;
+
+        private CompressedBody(Buffer body, long uncompressedBytes) {
+            this.body = body;
+            this.uncompressedBytes = uncompressedBytes;
         }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        ByteArrayInputStream in = new ByteArrayInputStream(bodyBytes);
-        try {
-            GZIPInputStream ungzip = new GZIPInputStream(in);
-            byte[] buffer = new byte[256];
-            int n;
-            while ((n = ungzip.read(buffer)) >= 0) {
-                out.write(buffer, 0, n);
+
+        // Returns a copy sharing segments with the body, and feeds the body to the digest
+        @Override
+        public CompressedBody compress(MessageDigest digest) throws IOException {
+            if (Objects.nonNull(digest)) {
+                byte[] chunk = new byte[GZIP_BUFFER_SIZE];
+                InputStream in = body.copy().inputStream();
+                int count;
+                while ((count = in.read(chunk)) > 0) {
+                    digest.update(chunk, 0, count);
+                }
             }
-        } catch (Exception e) {
-            log.error("[ByteplusSDK] gzip decompress http response error, msg:{} url:{}",
-                    e.getMessage(), url);
+            return new CompressedBody(body.copy(), uncompressedBytes);
+        }
+    }
+
+    // Failed to read the body of a response after its status line and headers
+    // are received. It is a failure of the transport, not a bad response, so
+    // it fails the call with NetException, which is retried like a timeout
+    private static class ResponseReadException extends IOException {
+        private ResponseReadException(IOException cause) {
+            super(cause.toString(), cause);
+        }
+    }
+
+    // Counts the bytes written through it
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+
+    // Counts the bytes read through it
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int n = in.read(bytes, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private static class GzipBufferBody extends RequestBody {
+        private final Buffer body;
+
+        private GzipBufferBody(Buffer body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            // "Content-Type" is set by headers
+            return null;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // OkHttp may write the body more than once when retrying,
+            // the copy shares segments with `body` instead of copying bytes
+            Buffer copy = body.copy();
+            sink.write(copy, copy.size());
         }
-        return out.toByteArray();
     }
 }
@@ -0,0 +1,250 @@
+package byteplus.sdk.core;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps the metrics of every endpoint in memory, recording never locks.
+// The counters are cumulative since the metrics are created, a monitoring
+// stack may poll `getEndpointStats` periodically and export the differences.
+//
+// Latencies are kept in a histogram with 8 buckets per power of two of
+// microseconds, so percentiles are accurate to within 12.5%.
+// Clients built with the same InMemoryMetrics share its metrics.
+public class InMemoryMetrics implements MetricsCollector {
+    // Each power of two is split into 1 << SUB_BUCKET_BITS buckets
+    private final static int SUB_BUCKET_BITS = 3;
+
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Latencies longer than 2^36us (about 19 hours) fall into the last bucket
+    private final static int MAX_EXPONENT = 36;
+
+    private final static int BUCKET_COUNT = bucketOf(1L << (MAX_EXPONENT + 1)) + 1;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final LongAdder hostSwitchCount = new LongAdder();
+
+    private volatile String currentHost;
+
+    @Getter
+    public static class EndpointStats {
+        // Number of attempts whose latency is recorded
+        private final long count;
+
+        private final Duration maxLatency;
+
+        private final Duration meanLatency;
+
+        private final long requestBytes;
+
+        private final long uncompressedRequestBytes;
+
+        private final long responseBytes;
+
+        // Count of every received status code
+        private final Map<Integer, Long> statusCounts;
+
+        // Attempts failed without any response, including the timeouts
+        private final long errorCount;
+
+        private final long timeoutCount;
+
+        private final long retryCount;
+
+        private final long[] buckets;
+
+        private EndpointStats(Endpoint endpoint) {
+            long[] buckets = new long[BUCKET_COUNT];
+            long count = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = endpoint.buckets.get(i);
+                count += buckets[i];
+            }
+            this.buckets = buckets;
+            this.count = count;
+            this.maxLatency = Duration.ofNanos(endpoint.maxLatencyNanos.get());
+            this.meanLatency = Duration.ofNanos(count == 0 ? 0 : endpoint.latencySumNanos.sum() / count);
+            this.requestBytes = endpoint.requestBytes.sum();
+            this.uncompressedRequestBytes = endpoint.uncompressedRequestBytes.sum();
+            this.responseBytes = endpoint.responseBytes.sum();
+            Map<Integer, Long> statusCounts = new HashMap<>();
+            endpoint.statusCounts.forEach((code, adder) -> statusCounts.put(code, adder.sum()));
+            this.statusCounts = Collections.unmodifiableMap(statusCounts);
+            this.errorCount = endpoint.errorCount.sum();
+            this.timeoutCount = endpoint.timeoutCount.sum();
+            this.retryCount = endpoint.retryCount.sum();
+        }
+
+        // Returns the latency which `percentile` (0 ~ 100) of the attempts are not slower than
+        public Duration getLatencyPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new RuntimeException("Percentile should be in [0, 100]");
+            }
+            if (count == 0) {
+                return Duration.ZERO;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    // the bucket's upper bound, but never beyond the max
+                    long micros = upperBoundOf(i);
+                    return Duration.ofNanos(Math.min(TimeUnit.MICROSECONDS.toNanos(micros), maxLatency.toNanos()));
+                }
+            }
+            return maxLatency;
+        }
+
+        // Uncompressed bytes per byte sent on the wire
+        public double getCompressionRatio() {
+            return requestBytes == 0 ? 0 : (double) uncompressedRequestBytes / requestBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count:%d mean:%dus p50:%dus p99:%dus max:%dus reqBytes:%d " +
+                            "compressionRatio:%.2f rspBytes:%d status:%s error:%d timeout:%d retry:%d",
+                    count, toMicros(meanLatency), toMicros(getLatencyPercentile(50)),
+                    toMicros(getLatencyPercentile(99)), toMicros(maxLatency), requestBytes,
+                    getCompressionRatio(), responseBytes, statusCounts, errorCount, timeoutCount, retryCount);
+        }
+
+        private static long toMicros(Duration duration) {
+            return TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+        }
+    }
+
+    // Returns the stats of every endpoint called, keyed by endpoint
+    public Map<String, EndpointStats> getEndpointStats() {
+        Map<String, EndpointStats> stats = new HashMap<>(endpoints.size() * 4 / 3 + 1);
+        endpoints.forEach((name, endpoint) -> stats.put(name, new EndpointStats(endpoint)));
+        return stats;
+    }
+
+    public long getHostSwitchCount() {
+        return hostSwitchCount.sum();
+    }
+
+    // The host switched to at last, null if never switched
+    public String getCurrentHost() {
+        return currentHost;
+    }
+
+    @Override
+    public void recordLatency(String endpoint, long latencyNanos) {
+        Endpoint metrics = endpointOf(endpoint);
+        long nanos = Math.max(0, latencyNanos);
+        metrics.buckets.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        metrics.latencySumNanos.add(nanos);
+        metrics.maxLatencyNanos.accumulate(nanos);
+    }
+
+    @Override
+    public void recordRequestBytes(String endpoint, long uncompressedBytes, long compressedBytes) {
+        Endpoint metrics = endpointOf(endpoint);
+        metrics.uncompressedRequestBytes.add(uncompressedBytes);
+        metrics.requestBytes.add(compressedBytes);
+    }
+
+    @Override
+    public void recordResponseBytes(String endpoint, long bytes) {
+        endpointOf(endpoint).responseBytes.add(bytes);
+    }
+
+    @Override
+    public void recordStatus(String endpoint, int code) {
+        Map<Integer, LongAdder> statusCounts = endpointOf(endpoint).statusCounts;
+        LongAdder counter = statusCounts.get(code);
+        if (Objects.isNull(counter)) {
+            counter = statusCounts.computeIfAbsent(code, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void recordError(String endpoint, boolean timeout) {
+        Endpoint metrics = endpointOf(endpoint);
+        metrics.errorCount.increment();
+        if (timeout) {
+            metrics.timeoutCount.increment();
+        }
+    }
+
+    @Override
+    public void recordRetry(String endpoint) {
+        endpointOf(endpoint).retryCount.increment();
+    }
+
+    @Override
+    public void onHostSwitch(String fromHost, String toHost) {
+        hostSwitchCount.increment();
+        currentHost = toHost;
+    }
+
+    private Endpoint endpointOf(String endpoint) {
+        // `get` first, as `computeIfAbsent` may lock even if the key is present
+        Endpoint metrics = endpoints.get(endpoint);
+        if (Objects.isNull(metrics)) {
+            metrics = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        }
+        return metrics;
+    }
+
+    // Values below SUB_BUCKET_COUNT have a bucket each, larger values
+    // share a bucket with the values of the same top SUB_BUCKET_BITS + 1 bits
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    private static class Endpoint {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        private final LongAdder latencySumNanos = new LongAdder();
+
+        private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder requestBytes = new LongAdder();
+
+        private final LongAdder uncompressedRequestBytes = new LongAdder();
+
+        private final LongAdder responseBytes = new LongAdder();
+
+        private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+        private final LongAdder errorCount = new LongAdder();
+
+        private final LongAdder timeoutCount = new LongAdder();
+
+        private final LongAdder retryCount = new LongAdder();
+    }
+}
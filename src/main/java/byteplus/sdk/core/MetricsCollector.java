@@ -0,0 +1,43 @@
+package byteplus.sdk.core;
+
+// Receives the metrics of the http calls made by clients, so they can be
+// bridged to any monitoring stack. InMemoryMetrics is the default implementation.
+//
+// An endpoint is the path of the url, e.g. "/predict/api/retail/{tenant}/{scene}",
+// "/data/api/retail/{tenant}/user", or "/predict/api/ping" of host pings.
+// Every attempt of a call is recorded, including retries and hedged copies.
+// Methods are called on the threads making and completing the calls, so they
+// should be thread safe and return quickly. Methods do nothing in default,
+// implementations override what they need.
+public interface MetricsCollector {
+    // An attempt is over, the latency covers sending the request,
+    // waiting for the response and parsing it. Attempts cancelled
+    // by their callers, e.g. the losers of hedged calls, are not recorded
+    default void recordLatency(String endpoint, long latencyNanos) {
+    }
+
+    // A request body is sent, the bytes on the wire are the compressed ones
+    default void recordRequestBytes(String endpoint, long uncompressedBytes, long compressedBytes) {
+    }
+
+    // A response body is received, as sent on the wire
+    default void recordResponseBytes(String endpoint, long bytes) {
+    }
+
+    // A response is received. The code is the http status code when it is
+    // not 200, otherwise the status code carried by the response message
+    default void recordStatus(String endpoint, int code) {
+    }
+
+    // An attempt failed without any response, e.g. timeout or connection refused
+    default void recordError(String endpoint, boolean timeout) {
+    }
+
+    // A failed attempt is retried
+    default void recordRetry(String endpoint) {
+    }
+
+    // The host requests are sent to is switched, as the former one is unavailable or slower
+    default void onHostSwitch(String fromHost, String toHost) {
+    }
+}
@@ -3,7 +3,9 @@ package byteplus.sdk.core;
 import okhttp3.Headers;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 
@@ -21,6 +23,31 @@ public interface Option {
         return options;
     }
 
+    // Returns the options followed by one clearing the request id, for the
+    // components sending many requests with the options of one caller,
+    // e.g. batchers. Each of the requests gets its own generated id, otherwise
+    // the server would take all but the first one as duplicates
+    static Option[] withoutRequestId(Option[] opts) {
+        if (Objects.isNull(opts)) {
+            opts = new Option[0];
+        }
+        Option[] result = Arrays.copyOf(opts, opts.length + 1);
+        result[opts.length] = options -> options.setRequestId(null);
+        return result;
+    }
+
+    // Returns the options followed by one setting the request id, for the
+    // components which resend a request of their own with the options of
+    // a caller, e.g. spools, the id overrides the caller's one
+    static Option[] withRequestId(Option[] opts, String requestId) {
+        if (Objects.isNull(opts)) {
+            opts = new Option[0];
+        }
+        Option[] result = Arrays.copyOf(opts, opts.length + 1);
+        result[opts.length] = withRequestId(requestId);
+        return result;
+    }
+
     static Option withTimeout(Duration timeout) {
         return options -> {
             if (timeout.toMillis() <= 0) {
@@ -46,10 +73,21 @@ public interface Option {
         return options -> options.setDataIsEnd(isEnd);
     }
 
+    // Whether the options mark the data of the date as complete, see `withDataEnd`
+    static boolean isDataEnd(Option[] opts) {
+        return Boolean.TRUE.equals(conv2Options(opts).getDataIsEnd());
+    }
+
     static Option withServerTimeout(Duration timeout) {
         return options -> options.setServerTimeout(timeout);
     }
 
+    // The request must be finished before the deadline, the remaining time
+    // bounds the client timeout and is sent to server as "Timeout-Millis"
+    static Option withDeadline(Instant deadline) {
+        return options -> options.setDeadline(deadline);
+    }
+
     static Option withQueries(Map<String, String> queries) {
         return options -> options.setQueries(queries);
     }
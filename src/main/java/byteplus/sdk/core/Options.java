@@ -3,6 +3,7 @@ package byteplus.sdk.core;
 import lombok.Data;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Map;
 
@@ -22,5 +23,7 @@ class Options {
 
     private Duration serverTimeout;
 
+    private Instant deadline;
+
     private String stage;
 }
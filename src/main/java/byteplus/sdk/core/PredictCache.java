@@ -0,0 +1,285 @@
+package byteplus.sdk.core;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static byteplus.sdk.core.Constant.STATUS_CODE_SUCCESS;
+
+// Caches successful predict responses in process, so identical predict calls
+// made within the ttl are answered locally without calling the server.
+//
+// Two calls are identical when they have the same url (tenant and scene),
+// the same stage, queries and headers in their options, and the same request
+// bytes, after clearing the `excludedFields` of the request.
+// The least recently used responses are evicted when the cached responses
+// weigh more than `maxWeightBytes`.
+// A cached response is returned as is, including the request id of the call
+// which got it. Clients built with the same PredictCache share its responses.
+public class PredictCache {
+    // The cache is split into segments locked separately
+    private final static int SEGMENT_COUNT = 16;
+
+    // Approximate memory held by a cache entry besides its key and response
+    private final static int ENTRY_OVERHEAD_BYTES = 64;
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // How long a response is cached, for the scenes not in `sceneTtls`
+        private Duration ttl = Duration.ofSeconds(10);
+
+        // Ttl of specific scenes, responses of a scene whose ttl is zero are not cached
+        private Map<String, Duration> sceneTtls = Collections.emptyMap();
+
+        // Max total weight of the cached keys and responses
+        private long maxWeightBytes = 32 * 1024 * 1024;
+
+        // Request fields ignored when matching calls, e.g. "request_id" or "context.device",
+        // nested fields are separated by ".", and use the names in the proto files
+        private Set<String> excludedFields = Collections.emptySet();
+    }
+
+    @Getter
+    public static class Stats {
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long evictionCount;
+
+        private final long size;
+
+        private final long weightBytes;
+
+        private Stats(long hitCount, long missCount, long evictionCount, long size, long weightBytes) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.weightBytes = weightBytes;
+        }
+
+        public double getHitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hit:%d miss:%d hitRate:%.3f eviction:%d size:%d weightBytes:%d",
+                    hitCount, missCount, getHitRate(), evictionCount, size, weightBytes);
+        }
+    }
+
+    private final long defaultTtlNanos;
+
+    private final Map<String, Long> sceneTtlNanos;
+
+    private final List<String[]> excludedPaths;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public PredictCache(Param param) {
+        if (param.ttl.isNegative()) {
+            throw new RuntimeException("Ttl should not be negative");
+        }
+        if (param.maxWeightBytes <= 0) {
+            throw new RuntimeException("Max weight bytes should be positive");
+        }
+        this.defaultTtlNanos = param.ttl.toNanos();
+        Map<String, Long> sceneTtlNanos = new HashMap<>();
+        for (Map.Entry<String, Duration> entry : param.sceneTtls.entrySet()) {
+            if (entry.getValue().isNegative()) {
+                throw new RuntimeException("Ttl of scene " + entry.getKey() + " should not be negative");
+            }
+            sceneTtlNanos.put(entry.getKey(), entry.getValue().toNanos());
+        }
+        this.sceneTtlNanos = sceneTtlNanos;
+        List<String[]> excludedPaths = new ArrayList<>();
+        for (String field : param.excludedFields) {
+            excludedPaths.add(field.split("\\."));
+        }
+        this.excludedPaths = excludedPaths;
+        long segmentMaxWeight = Math.max(1, param.maxWeightBytes / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentMaxWeight);
+        }
+    }
+
+    public PredictCache() {
+        this(new Param());
+    }
+
+    // Whether responses of the scene are cached
+    public boolean isCached(String scene) {
+        return ttlNanosOf(scene) > 0;
+    }
+
+    // The key the responses of the request sent with the options are cached with
+    public RequestKey keyOf(String url, Message request, Option... opts) {
+        Message keyRequest = request;
+        for (String[] path : excludedPaths) {
+            keyRequest = clearField(keyRequest, path, 0);
+        }
+        return RequestKey.of(url, keyRequest, opts);
+    }
+
+    // Returns the cached response, or null if absent or expired
+    @SuppressWarnings("unchecked")
+    public <M extends Message> M get(RequestKey key) {
+        Message response = segmentOf(key).get(key, System.nanoTime());
+        if (Objects.isNull(response)) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return (M) response;
+    }
+
+    // Caches the response if it is successful and the scene is cached
+    public void put(RequestKey key, String scene, Message response) {
+        long ttlNanos = ttlNanosOf(scene);
+        if (ttlNanos <= 0 || ResponseStatus.codeOf(response) != STATUS_CODE_SUCCESS) {
+            return;
+        }
+        long weight = (long) key.weight() + response.getSerializedSize() + ENTRY_OVERHEAD_BYTES;
+        segmentOf(key).put(key, new Entry(response, System.nanoTime() + ttlNanos, weight));
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public Stats getStats() {
+        long size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+                weight += segment.weight;
+            }
+        }
+        return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size, weight);
+    }
+
+    private long ttlNanosOf(String scene) {
+        Long ttlNanos = sceneTtlNanos.get(scene);
+        return Objects.nonNull(ttlNanos) ? ttlNanos : defaultTtlNanos;
+    }
+
+    private Segment segmentOf(RequestKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    // Returns a copy of the message without the field at `path`, or the message itself if the field is not set
+    private static Message clearField(Message message, String[] path, int depth) {
+        FieldDescriptor field = message.getDescriptorForType().findFieldByName(path[depth]);
+        if (Objects.isNull(field)) {
+            return message;
+        }
+        boolean isSet = field.isRepeated() ? message.getRepeatedFieldCount(field) > 0 : message.hasField(field);
+        if (!isSet) {
+            return message;
+        }
+        if (depth == path.length - 1) {
+            return message.toBuilder().clearField(field).build();
+        }
+        if (field.isRepeated() || field.getJavaType() != FieldDescriptor.JavaType.MESSAGE) {
+            return message;
+        }
+        Message child = (Message) message.getField(field);
+        Message newChild = clearField(child, path, depth + 1);
+        if (newChild == child) {
+            return message;
+        }
+        return message.toBuilder().setField(field, newChild).build();
+    }
+
+    private static class Entry {
+        private final Message response;
+
+        private final long expireNanos;
+
+        private final long weight;
+
+        private Entry(Message response, long expireNanos, long weight) {
+            this.response = response;
+            this.expireNanos = expireNanos;
+            this.weight = weight;
+        }
+    }
+
+    private class Segment {
+        private final long maxWeight;
+
+        // In access order, the eldest entry is the least recently used, guarded by this
+        private final LinkedHashMap<RequestKey, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        // guarded by this
+        private long weight;
+
+        private Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        private synchronized Message get(RequestKey key, long nowNanos) {
+            Entry entry = map.get(key);
+            if (Objects.isNull(entry)) {
+                return null;
+            }
+            if (nowNanos - entry.expireNanos >= 0) {
+                map.remove(key);
+                weight -= entry.weight;
+                return null;
+            }
+            return entry.response;
+        }
+
+        private synchronized void put(RequestKey key, Entry entry) {
+            if (entry.weight > maxWeight) {
+                return;
+            }
+            Entry old = map.put(key, entry);
+            if (Objects.nonNull(old)) {
+                weight -= old.weight;
+            }
+            weight += entry.weight;
+            Iterator<Entry> iterator = map.values().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictionCount.increment();
+            }
+        }
+
+        private synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package byteplus.sdk.core;
+
+// Generates the "Request-Id" of calls whose options have no request id.
+// TimeOrderedIdGenerator is the default implementation.
+//
+// It is called on the threads making the calls, so it should be thread safe
+// and return quickly. Batchers, e.g. UserEventBatcher, WriteSpool and
+// BulkImporter, send their batches through the client, so the ids of their
+// requests come from the client's generator as well.
+public interface RequestIdGenerator {
+    // Returns an id which is unique among the calls of all the clients
+    String nextId();
+}
@@ -0,0 +1,87 @@
+package byteplus.sdk.core;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Identifies a request by its url and its serialized bytes, two requests with
+// the same key get the same answer from the server.
+// Requests are serialized deterministically, so the order of map entries
+// does not change the key.
+// The options which reach the server, i.e. stage, queries and headers, are
+// part of the key too, when the key is made with the options of the call.
+public final class RequestKey {
+    private final String url;
+
+    private final byte[] bytes;
+
+    private final int hash;
+
+    private RequestKey(String url, byte[] bytes) {
+        this.url = url;
+        this.bytes = bytes;
+        this.hash = 31 * url.hashCode() + Arrays.hashCode(bytes);
+    }
+
+    public static RequestKey of(String url, Message request) {
+        byte[] bytes = new byte[request.getSerializedSize()];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.useDeterministicSerialization();
+        try {
+            request.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // never happens when writing to an array of the right size
+            throw new IllegalStateException(e);
+        }
+        return new RequestKey(url, bytes);
+    }
+
+    public static RequestKey of(String url, Message request, Option... opts) {
+        Options options = Option.conv2Options(opts);
+        StringBuilder scope = new StringBuilder(url);
+        if (Objects.nonNull(options.getStage())) {
+            scope.append("\nstage:").append(options.getStage());
+        }
+        if (Objects.nonNull(options.getQueries())) {
+            new TreeMap<>(options.getQueries()).forEach((name, value) ->
+                    scope.append("\nquery:").append(name).append('=').append(value));
+        }
+        if (Objects.nonNull(options.getHeaders())) {
+            // header names are case insensitive
+            Map<String, String> headers = new TreeMap<>();
+            options.getHeaders().forEach((name, value) -> headers.put(name.toLowerCase(Locale.ROOT), value));
+            headers.forEach((name, value) ->
+                    scope.append("\nheader:").append(name).append('=').append(value));
+        }
+        return of(scope.toString(), request);
+    }
+
+    // Approximate memory held by the key
+    int weight() {
+        return 2 * url.length() + bytes.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey other = (RequestKey) o;
+        return hash == other.hash && url.equals(other.url) && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,56 @@
+package byteplus.sdk.core;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+import java.util.Objects;
+
+// Reads the status code of any response message.
+// Most responses carry it as `status.code`, while predict responses of
+// general and byteair carry it as a top level `code`.
+public final class ResponseStatus {
+    // Returned when the response has no status code
+    public final static int UNKNOWN_CODE = -1;
+
+    private ResponseStatus() {
+    }
+
+    public static int codeOf(Message response) {
+        FieldDescriptor statusField = response.getDescriptorForType().findFieldByName("status");
+        if (Objects.nonNull(statusField) && statusField.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+            return intField((Message) response.getField(statusField), "code");
+        }
+        return intField(response, "code");
+    }
+
+    // Returns a copy of the response whose status code is replaced by `code`,
+    // or the response itself when it has no status code
+    @SuppressWarnings("unchecked")
+    public static <M extends Message> M withCode(M response, int code) {
+        FieldDescriptor statusField = response.getDescriptorForType().findFieldByName("status");
+        if (Objects.nonNull(statusField) && statusField.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+            Message status = (Message) response.getField(statusField);
+            if (intField(status, "code") == UNKNOWN_CODE) {
+                return response;
+            }
+            Message newStatus = status.toBuilder()
+                    .setField(status.getDescriptorForType().findFieldByName("code"), code)
+                    .build();
+            return (M) response.toBuilder().setField(statusField, newStatus).build();
+        }
+        if (intField(response, "code") == UNKNOWN_CODE) {
+            return response;
+        }
+        return (M) response.toBuilder()
+                .setField(response.getDescriptorForType().findFieldByName("code"), code)
+                .build();
+    }
+
+    private static int intField(Message message, String name) {
+        FieldDescriptor field = message.getDescriptorForType().findFieldByName(name);
+        if (Objects.isNull(field) || field.isRepeated() || field.getJavaType() != FieldDescriptor.JavaType.INT) {
+            return UNKNOWN_CODE;
+        }
+        return (Integer) message.getField(field);
+    }
+}
@@ -0,0 +1,106 @@
+package byteplus.sdk.core;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// How HttpCaller retries a call.
+// All the attempts of a call send the same "Request-Id", so the server
+// answers STATUS_CODE_IDEMPOTENT for an attempt whose former one already
+// succeeded, and such an answer is returned as STATUS_CODE_SUCCESS.
+// A call is retried when it times out (NetException), or the server answers
+// STATUS_CODE_TOO_MANY_REQUEST or STATUS_CODE_OPERATION_LOSS. Attempts are
+// separated by an exponential backoff with full jitter.
+//
+// Retries are limited by a token bucket budget: every retryable failure takes
+// one token, every other outcome gives back `budgetTokenRatio` tokens, and
+// retrying stops while less than half of `budgetMaxTokens` tokens are left.
+// So when most calls fail, as in an outage, retries do not multiply the load.
+// Clients built with the same RetryPolicy share one budget.
+public class RetryPolicy {
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Max attempts of a call including the first one
+        private int maxAttempts = 3;
+
+        // The backoff upper bound before the second attempt
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        // The backoff upper bound
+        private Duration maxBackoff = Duration.ofSeconds(5);
+
+        // The growth factor of the backoff upper bound after every attempt
+        private double backoffMultiplier = 2.0;
+
+        // Capacity of the retry budget
+        private int budgetMaxTokens = 100;
+
+        // Tokens given back to the budget by every call that needs no retry
+        private double budgetTokenRatio = 0.1;
+    }
+
+    private final int maxAttempts;
+
+    private final long initialBackoffNanos;
+
+    private final long maxBackoffNanos;
+
+    private final double backoffMultiplier;
+
+    private final double budgetMaxTokens;
+
+    private final double budgetTokenRatio;
+
+    // guarded by this
+    private double budgetTokens;
+
+    public RetryPolicy(Param param) {
+        if (param.maxAttempts <= 0) {
+            throw new RuntimeException("Max attempts should be positive");
+        }
+        if (param.budgetMaxTokens <= 0 || param.budgetTokenRatio <= 0) {
+            throw new RuntimeException("Retry budget should be positive");
+        }
+        this.maxAttempts = param.maxAttempts;
+        this.initialBackoffNanos = param.initialBackoff.toNanos();
+        this.maxBackoffNanos = param.maxBackoff.toNanos();
+        this.backoffMultiplier = param.backoffMultiplier;
+        this.budgetMaxTokens = param.budgetMaxTokens;
+        this.budgetTokenRatio = param.budgetTokenRatio;
+        this.budgetTokens = param.budgetMaxTokens;
+    }
+
+    public RetryPolicy() {
+        this(new Param());
+    }
+
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // Backoff before attempt `attempt + 1`, `attempt` starts from 1
+    Duration backoff(int attempt) {
+        double upper = initialBackoffNanos * Math.pow(backoffMultiplier, attempt - 1);
+        long upperNanos = (long) Math.min(maxBackoffNanos, upper);
+        if (upperNanos <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(upperNanos));
+    }
+
+    // Called when an attempt failed with a retryable error,
+    // returns whether the budget still allows a retry
+    synchronized boolean onRetryableFailure() {
+        budgetTokens = Math.max(0, budgetTokens - 1);
+        return budgetTokens > budgetMaxTokens / 2;
+    }
+
+    // Called when an attempt finished with an outcome that needs no retry
+    synchronized void onNonRetryableOutcome() {
+        budgetTokens = Math.min(budgetMaxTokens, budgetTokens + budgetTokenRatio);
+    }
+}
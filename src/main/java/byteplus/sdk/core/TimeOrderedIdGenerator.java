@@ -0,0 +1,59 @@
+package byteplus.sdk.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generates ids in the layout of UUID version 7 (RFC 9562), e.g.
+// "017d7e2a-4c60-7001-9f3b-5e0a1c2d3e4f": 48 bits of unix milliseconds,
+// a 12 bits counter within the millisecond, and 62 random bits.
+// Ids sort as strings in the order they are generated by one generator, and
+// by millisecond across generators, so requests are easy to find and follow
+// in the server's logs.
+//
+// The random bits come from ThreadLocalRandom, which never blocks and is not
+// shared between threads, unlike the SecureRandom behind UUID.randomUUID().
+// The ids are unique but predictable, they should not be used as secrets.
+public class TimeOrderedIdGenerator implements RequestIdGenerator {
+    private final static int COUNTER_BITS = 12;
+
+    private final static long VERSION = 0x7000L;
+
+    private final static long VARIANT = 0x8000000000000000L;
+
+    private final static long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final static char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // Unix milliseconds shifted left by COUNTER_BITS plus the counter
+    // of the last id. More than 4096 ids in a millisecond, or the clock
+    // going back, let it run ahead of the clock until the clock catches up,
+    // so ids are always increasing
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Override
+    public String nextId() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long tick = lastTick.updateAndGet(last -> Math.max(now, last + 1));
+        long mostSigBits = (tick >>> COUNTER_BITS) << 16 | VERSION | (tick & ((1 << COUNTER_BITS) - 1));
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & RANDOM_MASK | VARIANT;
+        char[] chars = new char[36];
+        formatHex(mostSigBits >>> 32, chars, 0, 8);
+        chars[8] = '-';
+        formatHex(mostSigBits >>> 16, chars, 9, 4);
+        chars[13] = '-';
+        formatHex(mostSigBits, chars, 14, 4);
+        chars[18] = '-';
+        formatHex(leastSigBits >>> 48, chars, 19, 4);
+        chars[23] = '-';
+        formatHex(leastSigBits, chars, 24, 12);
+        return new String(chars);
+    }
+
+    // Writes the lowest `digits` hex digits of value to chars from offset
+    static void formatHex(long value, char[] chars, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX_DIGITS[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+}
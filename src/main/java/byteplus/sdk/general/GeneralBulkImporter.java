@@ -0,0 +1,16 @@
+package byteplus.sdk.general;
+
+import byteplus.sdk.common.BulkImporter;
+import byteplus.sdk.common.DataBulkImporter;
+
+// Imports an arbitrarily large stream of data rows into one topic, see DataBulkImporter
+public class GeneralBulkImporter extends DataBulkImporter {
+
+    public GeneralBulkImporter(GeneralClient client, BulkImporter.Param param) {
+        super(client::importDataAsync, param);
+    }
+
+    public GeneralBulkImporter(GeneralClient client) {
+        this(client, new BulkImporter.Param());
+    }
+}
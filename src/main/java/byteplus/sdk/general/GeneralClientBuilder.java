@@ -1,14 +1,30 @@
 package byteplus.sdk.general;
 
 import byteplus.sdk.core.Context;
+import byteplus.sdk.core.CallInterceptor;
+import byteplus.sdk.core.CircuitBreaker;
+import byteplus.sdk.core.HedgePolicy;
+import byteplus.sdk.core.HostSelectStrategy;
+import byteplus.sdk.core.MetricsCollector;
+import byteplus.sdk.core.PredictCache;
 import byteplus.sdk.core.Region;
+import byteplus.sdk.core.RequestIdGenerator;
+import byteplus.sdk.core.RetryPolicy;
+import byteplus.sdk.general.protocol.ByteplusGeneral.PredictRequest;
+import byteplus.sdk.general.protocol.ByteplusGeneral.PredictResponse;
+import okhttp3.EventListener;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 public class GeneralClientBuilder {
     private final Context.Param param;
 
+    private BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
     public GeneralClientBuilder() {
         this.param = new Context.Param();
     }
@@ -48,7 +64,144 @@ public class GeneralClientBuilder {
         return this;
     }
 
+    public GeneralClientBuilder pooledParseBuffer(boolean pooledParseBuffer) {
+        this.param.setPooledParseBuffer(pooledParseBuffer);
+        return this;
+    }
+
+    public GeneralClientBuilder maxIdleConnections(int maxIdleConnections) {
+        this.param.setMaxIdleConnections(maxIdleConnections);
+        return this;
+    }
+
+    public GeneralClientBuilder keepAliveDuration(Duration keepAliveDuration) {
+        this.param.setKeepAliveDuration(keepAliveDuration);
+        return this;
+    }
+
+    public GeneralClientBuilder maxRequests(int maxRequests) {
+        this.param.setMaxRequests(maxRequests);
+        return this;
+    }
+
+    public GeneralClientBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+        this.param.setMaxRequestsPerHost(maxRequestsPerHost);
+        return this;
+    }
+
+    public GeneralClientBuilder http2(boolean http2) {
+        this.param.setHttp2(http2);
+        return this;
+    }
+
+    public GeneralClientBuilder executor(ExecutorService executor) {
+        this.param.setExecutor(executor);
+        return this;
+    }
+
+    public GeneralClientBuilder hostSelectStrategy(HostSelectStrategy hostSelectStrategy) {
+        this.param.setHostSelectStrategy(hostSelectStrategy);
+        return this;
+    }
+
+    public GeneralClientBuilder pingInterval(Duration pingInterval) {
+        this.param.setPingInterval(pingInterval);
+        return this;
+    }
+
+    public GeneralClientBuilder pingWindowSize(int pingWindowSize) {
+        this.param.setPingWindowSize(pingWindowSize);
+        return this;
+    }
+
+    public GeneralClientBuilder pingFailureRateThreshold(float pingFailureRateThreshold) {
+        this.param.setPingFailureRateThreshold(pingFailureRateThreshold);
+        return this;
+    }
+
+    public GeneralClientBuilder pingTimeout(Duration pingTimeout) {
+        this.param.setPingTimeout(pingTimeout);
+        return this;
+    }
+
+    public GeneralClientBuilder adaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.param.setAdaptiveConcurrency(adaptiveConcurrency);
+        return this;
+    }
+
+    public GeneralClientBuilder initialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.param.setInitialConcurrencyLimit(initialConcurrencyLimit);
+        return this;
+    }
+
+    public GeneralClientBuilder maxConcurrencyLimit(int maxConcurrencyLimit) {
+        this.param.setMaxConcurrencyLimit(maxConcurrencyLimit);
+        return this;
+    }
+
+    public GeneralClientBuilder maxConcurrencyWaiters(int maxConcurrencyWaiters) {
+        this.param.setMaxConcurrencyWaiters(maxConcurrencyWaiters);
+        return this;
+    }
+
+    public GeneralClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.param.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    public GeneralClientBuilder hedgePolicy(HedgePolicy hedgePolicy) {
+        this.param.setHedgePolicy(hedgePolicy);
+        return this;
+    }
+
+    public GeneralClientBuilder circuitBreaker(CircuitBreaker circuitBreaker) {
+        this.param.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    public GeneralClientBuilder predictCache(PredictCache predictCache) {
+        this.param.setPredictCache(predictCache);
+        return this;
+    }
+
+    public GeneralClientBuilder coalescePredict(boolean coalescePredict) {
+        this.param.setCoalescePredict(coalescePredict);
+        return this;
+    }
+
+    // Receives the metrics of the http calls, e.g. `new InMemoryMetrics()`
+    public GeneralClientBuilder metricsCollector(MetricsCollector metricsCollector) {
+        this.param.setMetricsCollector(metricsCollector);
+        return this;
+    }
+
+    // Observe the phases of every http call, e.g. to inject trace context
+    public GeneralClientBuilder interceptors(List<CallInterceptor> interceptors) {
+        this.param.setInterceptors(interceptors);
+        return this;
+    }
+
+    // Generates the request ids of calls without `Option.withRequestId`,
+    // time ordered ids of `TimeOrderedIdGenerator` in default
+    public GeneralClientBuilder requestIdGenerator(RequestIdGenerator requestIdGenerator) {
+        this.param.setRequestIdGenerator(requestIdGenerator);
+        return this;
+    }
+
+    // Reports the DNS, connecting and TLS timings of every http call
+    public GeneralClientBuilder eventListenerFactory(EventListener.Factory eventListenerFactory) {
+        this.param.setEventListenerFactory(eventListenerFactory);
+        return this;
+    }
+
+    // Answers predict calls while the circuit breaker of their scene is open,
+    // it receives the request and the scene
+    public GeneralClientBuilder predictFallback(BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
+        this.predictFallback = predictFallback;
+        return this;
+    }
+
     public GeneralClient build() {
-        return new GeneralClientImpl(this.param);
+        return new GeneralClientImpl(this.param, predictFallback);
     }
 }
@@ -3,6 +3,7 @@ package byteplus.sdk.general;
 import byteplus.sdk.common.CommonClientImpl;
 import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
 import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.CircuitBreakerOpenException;
 import byteplus.sdk.core.Context;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
@@ -19,9 +20,12 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 import static byteplus.sdk.core.Constant.MAX_IMPORT_ITEM_COUNT;
 import static byteplus.sdk.core.Constant.MAX_WRITE_ITEM_COUNT;
@@ -34,8 +38,12 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
 
     private final GeneralURL generalURL;
 
-    GeneralClientImpl(Context.Param param) {
+    // Optional, answers predict calls while the circuit breaker is open
+    private final BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
+    GeneralClientImpl(Context.Param param, BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
         super(param);
+        this.predictFallback = predictFallback;
         this.generalURL = new GeneralURL(context);
     }
 
@@ -61,6 +69,34 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
         return response;
     }
 
+    @Override
+    public WriteResponse writeRawData(List<byte[]> jsonRows, String topic,
+                                      Option... opts) throws NetException, BizException {
+        checkJsonRows(jsonRows);
+        if (jsonRows.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (jsonRows.size() > MAX_IMPORT_ITEM_COUNT) {
+                throw new BizException(ERR_MSG_TOO_MANY_ITEMS);
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = generalURL.getWriteDataUrlFormat().replace("{}", topic);
+        WriteResponse response = httpCaller.doRawJsonRequest(url, jsonRows, parser, opts);
+        log.debug("[ByteplusSDK][WriteData] rsp:\n{}", response);
+        return response;
+    }
+
+    @Override
+    public WriteResponse writeRawData(byte[] jsonArray, String topic,
+                                      Option... opts) throws NetException, BizException {
+        checkJsonArray(jsonArray);
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = generalURL.getWriteDataUrlFormat().replace("{}", topic);
+        WriteResponse response = httpCaller.doRawJsonRequest(url, jsonArray, parser, opts);
+        log.debug("[ByteplusSDK][WriteData] rsp:\n{}", response);
+        return response;
+    }
+
     @Override
     public OperationResponse importData(List<Map<String, Object>> dataList, String topic,
                                         Option... opts) throws NetException, BizException {
@@ -75,9 +111,30 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
         return response;
     }
 
+    @Override
+    public OperationResponse importData(Iterator<Map<String, Object>> dataIterator, String topic,
+                                        Option... opts) throws NetException, BizException {
+        Iterator<Map<String, Object>> rows = atMost(dataIterator, MAX_IMPORT_ITEM_COUNT, ERR_MSG_TOO_MANY_ITEMS);
+        String url = generalURL.getImportDataUrlFormat().replace("{}", topic);
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        OperationResponse response = httpCaller.doJsonRequest(url, rows, parser, opts);
+        log.debug("[ByteplusSDK][ImportData] rsp:\n{}", response);
+        return response;
+    }
+
     @Override
     public DoneResponse done(List<LocalDate> dateList, String topic,
                              Option... opts) throws NetException, BizException {
+        List<Map<String, String>> dateMapList = buildDoneDates(dateList);
+        String urlFormat = generalURL.getDoneUrlFormat();
+        String url = urlFormat.replace("{}", topic);
+        Parser<DoneResponse> parser = DoneResponse.parser();
+        DoneResponse response = httpCaller.doJsonRequest(url, dateMapList, parser, opts);
+        log.debug("[ByteplusSDK][Done] rsp:\n{}", response);
+        return response;
+    }
+
+    private List<Map<String, String>> buildDoneDates(List<LocalDate> dateList) {
         List<Map<String, String>> dateMapList = new ArrayList<>();
         if (Objects.isNull(dateList) || dateList.isEmpty()) {
             LocalDate previousDay = LocalDate.now().plusDays(-1);
@@ -87,12 +144,7 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
                 addDoneDate(dateMapList, date);
             }
         }
-        String urlFormat = generalURL.getDoneUrlFormat();
-        String url = urlFormat.replace("{}", topic);
-        Parser<DoneResponse> parser = DoneResponse.parser();
-        DoneResponse response = httpCaller.doJsonRequest(url, dateMapList, parser, opts);
-        log.debug("[ByteplusSDK][Done] rsp:\n{}", response);
-        return response;
+        return dateMapList;
     }
 
     private void addDoneDate(List<Map<String, String>> dateMapList, LocalDate date) {
@@ -108,7 +160,17 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
                                    Option... opts) throws NetException, BizException {
         String url = generalURL.getPredictUrlFormat().replace("{}", scene);
         Parser<PredictResponse> parser = PredictResponse.parser();
-        PredictResponse response = httpCaller.doPbRequest(url, request, parser, opts);
+        PredictResponse response;
+        try {
+            response = doPredict(url, scene, request, opts,
+                    () -> httpCaller.doPbRequestHedged(url, request, parser, opts));
+        } catch (CircuitBreakerOpenException e) {
+            if (Objects.isNull(predictFallback)) {
+                throw e;
+            }
+            log.warn("[ByteplusSDK][Predict] {}, use fallback", e.getMessage());
+            return predictFallback.apply(request, scene);
+        }
         log.debug("[ByteplusSDK][Predict] rsp:\n{}", response);
         return response;
     }
@@ -122,4 +184,97 @@ public class GeneralClientImpl extends CommonClientImpl implements GeneralClient
         log.debug("[ByteplusSDK][Callback] rsp:\n{}", response);
         return response;
     }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                           Option... opts) {
+        if (Objects.nonNull(dataList) && dataList.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (dataList.size() > MAX_IMPORT_ITEM_COUNT) {
+                return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = generalURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, dataList, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeRawDataAsync(List<byte[]> jsonRows, String topic,
+                                                              Option... opts) {
+        try {
+            checkJsonRows(jsonRows);
+        } catch (BizException e) {
+            return failedFuture(e);
+        }
+        if (jsonRows.size() > MAX_WRITE_ITEM_COUNT) {
+            log.warn("[ByteplusSDK][WriteData] item count more than '{}'", MAX_WRITE_ITEM_COUNT);
+            if (jsonRows.size() > MAX_IMPORT_ITEM_COUNT) {
+                return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+            }
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = generalURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doRawJsonRequestAsync(url, jsonRows, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteResponse> writeRawDataAsync(byte[] jsonArray, String topic,
+                                                              Option... opts) {
+        try {
+            checkJsonArray(jsonArray);
+        } catch (BizException e) {
+            return failedFuture(e);
+        }
+        Parser<WriteResponse> parser = WriteResponse.parser();
+        String url = generalURL.getWriteDataUrlFormat().replace("{}", topic);
+        return httpCaller.doRawJsonRequestAsync(url, jsonArray, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importDataAsync(List<Map<String, Object>> dataList, String topic,
+                                                                Option... opts) {
+        if (Objects.nonNull(dataList) && dataList.size() > MAX_IMPORT_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_ITEMS));
+        }
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = generalURL.getImportDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, dataList, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importDataAsync(Iterator<Map<String, Object>> dataIterator,
+                                                                String topic, Option... opts) {
+        Iterator<Map<String, Object>> rows = atMost(dataIterator, MAX_IMPORT_ITEM_COUNT, ERR_MSG_TOO_MANY_ITEMS);
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = generalURL.getImportDataUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, rows, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<DoneResponse> doneAsync(List<LocalDate> dateList, String topic, Option... opts) {
+        List<Map<String, String>> dateMapList = buildDoneDates(dateList);
+        Parser<DoneResponse> parser = DoneResponse.parser();
+        String url = generalURL.getDoneUrlFormat().replace("{}", topic);
+        return httpCaller.doJsonRequestAsync(url, dateMapList, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<PredictResponse> predictAsync(PredictRequest request, String scene, Option... opts) {
+        String url = generalURL.getPredictUrlFormat().replace("{}", scene);
+        Parser<PredictResponse> parser = PredictResponse.parser();
+        CompletableFuture<PredictResponse> future = doPredictAsync(url, scene, request, opts,
+                () -> httpCaller.doPbRequestHedgedAsync(url, request, parser, opts));
+        if (Objects.isNull(predictFallback)) {
+            return future;
+        }
+        return withBreakerFallback(future, () -> predictFallback.apply(request, scene));
+    }
+
+    @Override
+    public CompletableFuture<CallbackResponse> callbackAsync(CallbackRequest request, Option... opts) {
+        Parser<CallbackResponse> parser = CallbackResponse.parser();
+        String url = generalURL.getCallbackUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
 }
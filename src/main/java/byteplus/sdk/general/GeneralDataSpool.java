@@ -0,0 +1,58 @@
+package byteplus.sdk.general;
+
+import byteplus.sdk.common.WriteSpool;
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.NetException;
+import byteplus.sdk.core.Option;
+import byteplus.sdk.core.ResponseStatus;
+import com.alibaba.fastjson.JSON;
+
+import java.util.List;
+import java.util.Map;
+
+// Spools data rows of one topic on local disk as JSON, and writes them to
+// the server in the background, so rows survive outages of the server, see WriteSpool.
+// Rows can be spooled always, or only after writeData failed.
+public class GeneralDataSpool implements AutoCloseable {
+    private final GeneralClient client;
+
+    private final String topic;
+
+    private final Option[] opts;
+
+    private final WriteSpool spool;
+
+    public GeneralDataSpool(GeneralClient client, String topic,
+                            WriteSpool.Param param, Option... opts) throws BizException {
+        this.client = client;
+        this.topic = topic;
+        this.opts = opts;
+        this.spool = new WriteSpool(param, this::writeRecords, client::hasAvailableHost);
+    }
+
+    // Spools the row, fails when the spool is full or closed
+    public void write(Map<String, Object> data) throws BizException {
+        spool.append(JSON.toJSONBytes(data));
+    }
+
+    public void write(List<Map<String, Object>> dataList) throws BizException {
+        for (Map<String, Object> data : dataList) {
+            spool.append(JSON.toJSONBytes(data));
+        }
+    }
+
+    // Spools a row already encoded as a JSON object in UTF-8, it is not parsed
+    public void writeRaw(byte[] jsonRow) throws BizException {
+        spool.append(jsonRow);
+    }
+
+    // Stops writing, the rows not written yet stay on disk
+    @Override
+    public void close() {
+        spool.close();
+    }
+
+    private int writeRecords(List<byte[]> records, String batchId) throws NetException, BizException {
+        return ResponseStatus.codeOf(client.writeRawData(records, topic, Option.withRequestId(opts, batchId)));
+    }
+}
@@ -0,0 +1,140 @@
+package byteplus.sdk.retail;
+
+import byteplus.sdk.common.BulkImportResult;
+import byteplus.sdk.common.BulkImporter;
+import byteplus.sdk.common.FileRows;
+import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.Option;
+import byteplus.sdk.retail.protocol.ByteplusRetail.DateConfig;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ImportProductsRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ImportUserEventsRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ImportUsersRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.Product;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ProductsInlineSource;
+import byteplus.sdk.retail.protocol.ByteplusRetail.ProductsInputConfig;
+import byteplus.sdk.retail.protocol.ByteplusRetail.User;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEvent;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEventsInlineSource;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEventsInputConfig;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UsersInlineSource;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UsersInputConfig;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Imports arbitrarily large streams of users, products or user events,
+// every chunk is sent under the same `DateConfig`.
+// If `date_config.is_end` is true, the chunks are sent with `is_end` false,
+// and an empty request with `is_end` true is sent after all the chunks
+// are accepted, as required by the server.
+public class RetailBulkImporter {
+    private final RetailClient client;
+
+    private final BulkImporter.Param param;
+
+    public RetailBulkImporter(RetailClient client, BulkImporter.Param param) {
+        this.client = client;
+        this.param = param;
+    }
+
+    public RetailBulkImporter(RetailClient client) {
+        this(client, new BulkImporter.Param());
+    }
+
+    public BulkImportResult importUsers(Iterator<User> users,
+                                        DateConfig dateConfig,
+                                        Option... opts) throws BizException {
+        // every chunk is a request of its own, with its own request id
+        Option[] chunkOpts = Option.withoutRequestId(opts);
+        Function<List<User>, ImportUsersRequest> requestBuilder = chunk -> ImportUsersRequest.newBuilder()
+                .setInputConfig(UsersInputConfig.newBuilder()
+                        .setUsersInlineSource(UsersInlineSource.newBuilder().addAllUsers(chunk)))
+                .setDateConfig(dateConfig.toBuilder().setIsEnd(false))
+                .build();
+        ImportUsersRequest endRequest = requestBuilder.apply(Collections.emptyList()).toBuilder()
+                .setDateConfig(dateConfig)
+                .build();
+        BulkImporter<User> importer = new BulkImporter<>(
+                chunk -> client.importUsersAsync(requestBuilder.apply(chunk), chunkOpts), param);
+        return importer.importAll(users, endImporter(dateConfig, () -> client.importUsersAsync(endRequest, chunkOpts)));
+    }
+
+    public BulkImportResult importProducts(Iterator<Product> products,
+                                           DateConfig dateConfig,
+                                           Option... opts) throws BizException {
+        Option[] chunkOpts = Option.withoutRequestId(opts);
+        Function<List<Product>, ImportProductsRequest> requestBuilder = chunk -> ImportProductsRequest.newBuilder()
+                .setInputConfig(ProductsInputConfig.newBuilder()
+                        .setProductsInlineSource(ProductsInlineSource.newBuilder().addAllProducts(chunk)))
+                .setDateConfig(dateConfig.toBuilder().setIsEnd(false))
+                .build();
+        ImportProductsRequest endRequest = requestBuilder.apply(Collections.emptyList()).toBuilder()
+                .setDateConfig(dateConfig)
+                .build();
+        BulkImporter<Product> importer = new BulkImporter<>(
+                chunk -> client.importProductsAsync(requestBuilder.apply(chunk), chunkOpts), param);
+        return importer.importAll(products, endImporter(dateConfig, () -> client.importProductsAsync(endRequest, chunkOpts)));
+    }
+
+    public BulkImportResult importUserEvents(Iterator<UserEvent> userEvents,
+                                             DateConfig dateConfig,
+                                             Option... opts) throws BizException {
+        Option[] chunkOpts = Option.withoutRequestId(opts);
+        Function<List<UserEvent>, ImportUserEventsRequest> requestBuilder = chunk -> ImportUserEventsRequest.newBuilder()
+                .setInputConfig(UserEventsInputConfig.newBuilder()
+                        .setUserEventsInlineSource(UserEventsInlineSource.newBuilder().addAllUserEvents(chunk)))
+                .setDateConfig(dateConfig.toBuilder().setIsEnd(false))
+                .build();
+        ImportUserEventsRequest endRequest = requestBuilder.apply(Collections.emptyList()).toBuilder()
+                .setDateConfig(dateConfig)
+                .build();
+        BulkImporter<UserEvent> importer = new BulkImporter<>(
+                chunk -> client.importUserEventsAsync(requestBuilder.apply(chunk), chunkOpts), param);
+        return importer.importAll(userEvents, endImporter(dateConfig, () -> client.importUserEventsAsync(endRequest, chunkOpts)));
+    }
+
+    // Imports the users of a length-delimited protobuf file, see FileRows
+    public BulkImportResult importUsers(Path file,
+                                        DateConfig dateConfig,
+                                        Option... opts) throws BizException {
+        try (FileRows.RowIterator<User> users = FileRows.delimitedProtobuf(file, User.parser())) {
+            return importUsers(users, dateConfig, opts);
+        } catch (UncheckedIOException e) {
+            throw new BizException(e.getCause().getMessage());
+        }
+    }
+
+    // Imports the products of a length-delimited protobuf file, see FileRows
+    public BulkImportResult importProducts(Path file,
+                                           DateConfig dateConfig,
+                                           Option... opts) throws BizException {
+        try (FileRows.RowIterator<Product> products = FileRows.delimitedProtobuf(file, Product.parser())) {
+            return importProducts(products, dateConfig, opts);
+        } catch (UncheckedIOException e) {
+            throw new BizException(e.getCause().getMessage());
+        }
+    }
+
+    // Imports the user events of a length-delimited protobuf file, see FileRows
+    public BulkImportResult importUserEvents(Path file,
+                                             DateConfig dateConfig,
+                                             Option... opts) throws BizException {
+        try (FileRows.RowIterator<UserEvent> userEvents = FileRows.delimitedProtobuf(file, UserEvent.parser())) {
+            return importUserEvents(userEvents, dateConfig, opts);
+        } catch (UncheckedIOException e) {
+            throw new BizException(e.getCause().getMessage());
+        }
+    }
+
+    private Supplier<CompletableFuture<OperationResponse>> endImporter(
+            DateConfig dateConfig, Supplier<CompletableFuture<OperationResponse>> importer) {
+        return dateConfig.getIsEnd() ? importer : null;
+    }
+}
@@ -6,6 +6,8 @@ import byteplus.sdk.core.BizException;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
 
+import java.util.concurrent.CompletableFuture;
+
 import static byteplus.sdk.retail.protocol.ByteplusRetail.AckServerImpressionsRequest;
 import static byteplus.sdk.retail.protocol.ByteplusRetail.AckServerImpressionsResponse;
 import static byteplus.sdk.retail.protocol.ByteplusRetail.ImportProductsRequest;
@@ -124,4 +126,26 @@ public interface RetailClient extends CommonClient {
     // ].
     AckServerImpressionsResponse ackServerImpressions(
             AckServerImpressionsRequest request, Option... opts) throws NetException, BizException;
+
+    // Asynchronous versions of the calls above.
+    //
+    // They are driven by OkHttp's dispatcher instead of blocking the calling
+    // thread, the returned future is completed exceptionally with NetException
+    // or BizException when the call fails.
+    CompletableFuture<WriteUsersResponse> writeUsersAsync(WriteUsersRequest request, Option... opts);
+
+    CompletableFuture<OperationResponse> importUsersAsync(ImportUsersRequest request, Option... opts);
+
+    CompletableFuture<WriteProductsResponse> writeProductsAsync(WriteProductsRequest request, Option... opts);
+
+    CompletableFuture<OperationResponse> importProductsAsync(ImportProductsRequest request, Option... opts);
+
+    CompletableFuture<WriteUserEventsResponse> writeUserEventsAsync(WriteUserEventsRequest request, Option... opts);
+
+    CompletableFuture<OperationResponse> importUserEventsAsync(ImportUserEventsRequest request, Option... opts);
+
+    CompletableFuture<PredictResponse> predictAsync(PredictRequest request, String scene, Option... opts);
+
+    CompletableFuture<AckServerImpressionsResponse> ackServerImpressionsAsync(
+            AckServerImpressionsRequest request, Option... opts);
 }
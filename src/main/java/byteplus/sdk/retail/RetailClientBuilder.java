@@ -1,14 +1,30 @@
 package byteplus.sdk.retail;
 
+import byteplus.sdk.core.CallInterceptor;
+import byteplus.sdk.core.CircuitBreaker;
+import byteplus.sdk.core.HedgePolicy;
+import byteplus.sdk.core.HostSelectStrategy;
+import byteplus.sdk.core.MetricsCollector;
+import byteplus.sdk.core.PredictCache;
 import byteplus.sdk.core.Region;
+import byteplus.sdk.core.RequestIdGenerator;
+import byteplus.sdk.core.RetryPolicy;
 import byteplus.sdk.core.Context.Param;
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictRequest;
+import byteplus.sdk.retail.protocol.ByteplusRetail.PredictResponse;
+import okhttp3.EventListener;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 public final class RetailClientBuilder {
     private final Param param;
 
+    private BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
     public RetailClientBuilder() {
         this.param = new Param();
     }
@@ -48,7 +64,144 @@ public final class RetailClientBuilder {
         return this;
     }
 
+    public RetailClientBuilder pooledParseBuffer(boolean pooledParseBuffer) {
+        this.param.setPooledParseBuffer(pooledParseBuffer);
+        return this;
+    }
+
+    public RetailClientBuilder maxIdleConnections(int maxIdleConnections) {
+        this.param.setMaxIdleConnections(maxIdleConnections);
+        return this;
+    }
+
+    public RetailClientBuilder keepAliveDuration(Duration keepAliveDuration) {
+        this.param.setKeepAliveDuration(keepAliveDuration);
+        return this;
+    }
+
+    public RetailClientBuilder maxRequests(int maxRequests) {
+        this.param.setMaxRequests(maxRequests);
+        return this;
+    }
+
+    public RetailClientBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+        this.param.setMaxRequestsPerHost(maxRequestsPerHost);
+        return this;
+    }
+
+    public RetailClientBuilder http2(boolean http2) {
+        this.param.setHttp2(http2);
+        return this;
+    }
+
+    public RetailClientBuilder executor(ExecutorService executor) {
+        this.param.setExecutor(executor);
+        return this;
+    }
+
+    public RetailClientBuilder hostSelectStrategy(HostSelectStrategy hostSelectStrategy) {
+        this.param.setHostSelectStrategy(hostSelectStrategy);
+        return this;
+    }
+
+    public RetailClientBuilder pingInterval(Duration pingInterval) {
+        this.param.setPingInterval(pingInterval);
+        return this;
+    }
+
+    public RetailClientBuilder pingWindowSize(int pingWindowSize) {
+        this.param.setPingWindowSize(pingWindowSize);
+        return this;
+    }
+
+    public RetailClientBuilder pingFailureRateThreshold(float pingFailureRateThreshold) {
+        this.param.setPingFailureRateThreshold(pingFailureRateThreshold);
+        return this;
+    }
+
+    public RetailClientBuilder pingTimeout(Duration pingTimeout) {
+        this.param.setPingTimeout(pingTimeout);
+        return this;
+    }
+
+    public RetailClientBuilder adaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.param.setAdaptiveConcurrency(adaptiveConcurrency);
+        return this;
+    }
+
+    public RetailClientBuilder initialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.param.setInitialConcurrencyLimit(initialConcurrencyLimit);
+        return this;
+    }
+
+    public RetailClientBuilder maxConcurrencyLimit(int maxConcurrencyLimit) {
+        this.param.setMaxConcurrencyLimit(maxConcurrencyLimit);
+        return this;
+    }
+
+    public RetailClientBuilder maxConcurrencyWaiters(int maxConcurrencyWaiters) {
+        this.param.setMaxConcurrencyWaiters(maxConcurrencyWaiters);
+        return this;
+    }
+
+    public RetailClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.param.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    public RetailClientBuilder hedgePolicy(HedgePolicy hedgePolicy) {
+        this.param.setHedgePolicy(hedgePolicy);
+        return this;
+    }
+
+    public RetailClientBuilder circuitBreaker(CircuitBreaker circuitBreaker) {
+        this.param.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    public RetailClientBuilder predictCache(PredictCache predictCache) {
+        this.param.setPredictCache(predictCache);
+        return this;
+    }
+
+    public RetailClientBuilder coalescePredict(boolean coalescePredict) {
+        this.param.setCoalescePredict(coalescePredict);
+        return this;
+    }
+
+    // Receives the metrics of the http calls, e.g. `new InMemoryMetrics()`
+    public RetailClientBuilder metricsCollector(MetricsCollector metricsCollector) {
+        this.param.setMetricsCollector(metricsCollector);
+        return this;
+    }
+
+    // Observe the phases of every http call, e.g. to inject trace context
+    public RetailClientBuilder interceptors(List<CallInterceptor> interceptors) {
+        this.param.setInterceptors(interceptors);
+        return this;
+    }
+
+    // Generates the request ids of calls without `Option.withRequestId`,
+    // time ordered ids of `TimeOrderedIdGenerator` in default
+    public RetailClientBuilder requestIdGenerator(RequestIdGenerator requestIdGenerator) {
+        this.param.setRequestIdGenerator(requestIdGenerator);
+        return this;
+    }
+
+    // Reports the DNS, connecting and TLS timings of every http call
+    public RetailClientBuilder eventListenerFactory(EventListener.Factory eventListenerFactory) {
+        this.param.setEventListenerFactory(eventListenerFactory);
+        return this;
+    }
+
+    // Answers predict calls while the circuit breaker of their scene is open,
+    // it receives the request and the scene
+    public RetailClientBuilder predictFallback(BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
+        this.predictFallback = predictFallback;
+        return this;
+    }
+
     public RetailClient build() {
-        return new RetailClientImpl(this.param);
+        return new RetailClientImpl(this.param, predictFallback);
     }
 }
@@ -3,6 +3,7 @@ package byteplus.sdk.retail;
 import byteplus.sdk.common.CommonClientImpl;
 import byteplus.sdk.common.protocol.ByteplusCommon.OperationResponse;
 import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.CircuitBreakerOpenException;
 import byteplus.sdk.core.Context;
 import byteplus.sdk.core.NetException;
 import byteplus.sdk.core.Option;
@@ -22,6 +23,10 @@ import byteplus.sdk.retail.protocol.ByteplusRetail.WriteUsersResponse;
 import com.google.protobuf.Parser;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
 import static byteplus.sdk.core.Constant.MAX_IMPORT_ITEM_COUNT;
 import static byteplus.sdk.core.Constant.MAX_WRITE_ITEM_COUNT;
 
@@ -36,8 +41,12 @@ class RetailClientImpl extends CommonClientImpl implements RetailClient {
 
     private final RetailURL retailUrl;
 
-    RetailClientImpl(Context.Param param) {
+    // Optional, answers predict calls while the circuit breaker is open
+    private final BiFunction<PredictRequest, String, PredictResponse> predictFallback;
+
+    RetailClientImpl(Context.Param param, BiFunction<PredictRequest, String, PredictResponse> predictFallback) {
         super(param);
+        this.predictFallback = predictFallback;
         this.retailUrl = new RetailURL(context);
     }
 
@@ -129,7 +138,17 @@ class RetailClientImpl extends CommonClientImpl implements RetailClient {
         String urlFormat = retailUrl.getPredictUrlFormat();
         String url = urlFormat.replace("{}", scene);
         Parser<PredictResponse> parser = PredictResponse.parser();
-        PredictResponse response = httpCaller.doPbRequest(url, request, parser, opts);
+        PredictResponse response;
+        try {
+            response = doPredict(url, scene, request, opts,
+                    () -> httpCaller.doPbRequestHedged(url, request, parser, opts));
+        } catch (CircuitBreakerOpenException e) {
+            if (Objects.isNull(predictFallback)) {
+                throw e;
+            }
+            log.warn("[ByteplusSDK][Predict] {}, use fallback", e.getMessage());
+            return predictFallback.apply(request, scene);
+        }
         log.debug("[ByteplusSDK][Predict] rsp:\n{}", response);
         return response;
     }
@@ -143,4 +162,83 @@ class RetailClientImpl extends CommonClientImpl implements RetailClient {
         log.debug("[ByteplusSDK][AckImpressions] rsp:\n{}", response);
         return response;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<WriteUsersResponse> writeUsersAsync(WriteUsersRequest request, Option... opts) {
+        if (request.getUsersCount() > MAX_WRITE_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_WRITE_ITEMS));
+        }
+        Parser<WriteUsersResponse> parser = WriteUsersResponse.parser();
+        String url = retailUrl.getWriteUsersUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importUsersAsync(ImportUsersRequest request, Option... opts) {
+        if (request.getInputConfig().getUsersInlineSource().getUsersCount() > MAX_IMPORT_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_IMPORT_ITEMS));
+        }
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = retailUrl.getImportUsersUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteProductsResponse> writeProductsAsync(WriteProductsRequest request, Option... opts) {
+        if (request.getProductsCount() > MAX_WRITE_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_WRITE_ITEMS));
+        }
+        Parser<WriteProductsResponse> parser = WriteProductsResponse.parser();
+        String url = retailUrl.getWriteProductsUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importProductsAsync(ImportProductsRequest request, Option... opts) {
+        if (request.getInputConfig().getProductsInlineSource().getProductsCount() > MAX_IMPORT_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_IMPORT_ITEMS));
+        }
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = retailUrl.getImportProductsUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<WriteUserEventsResponse> writeUserEventsAsync(
+            WriteUserEventsRequest request, Option... opts) {
+        if (request.getUserEventsCount() > MAX_WRITE_ITEM_COUNT) {
+            return failedFuture(new BizException(ERR_MSG_TOO_MANY_WRITE_ITEMS));
+        }
+        Parser<WriteUserEventsResponse> parser = WriteUserEventsResponse.parser();
+        String url = retailUrl.getWriteUserEventsUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> importUserEventsAsync(
+            ImportUserEventsRequest request, Option... opts) {
+        Parser<OperationResponse> parser = OperationResponse.parser();
+        String url = retailUrl.getImportUserEventsUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+
+    @Override
+    public CompletableFuture<PredictResponse> predictAsync(PredictRequest request, String scene, Option... opts) {
+        String url = retailUrl.getPredictUrlFormat().replace("{}", scene);
+        Parser<PredictResponse> parser = PredictResponse.parser();
+        CompletableFuture<PredictResponse> future = doPredictAsync(url, scene, request, opts,
+                () -> httpCaller.doPbRequestHedgedAsync(url, request, parser, opts));
+        if (Objects.isNull(predictFallback)) {
+            return future;
+        }
+        return withBreakerFallback(future, () -> predictFallback.apply(request, scene));
+    }
+
+    @Override
+    public CompletableFuture<AckServerImpressionsResponse> ackServerImpressionsAsync(
+            AckServerImpressionsRequest request, Option... opts) {
+        Parser<AckServerImpressionsResponse> parser = AckServerImpressionsResponse.parser();
+        String url = retailUrl.getAckImpressionUrl();
+        return httpCaller.doPbRequestAsync(url, request, parser, opts);
+    }
+}
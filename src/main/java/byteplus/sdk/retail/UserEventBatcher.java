@@ -0,0 +1,226 @@
+package byteplus.sdk.retail;
+
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.Option;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static byteplus.sdk.core.Constant.MAX_WRITE_ITEM_COUNT;
+import static byteplus.sdk.retail.protocol.ByteplusRetail.UserEvent;
+import static byteplus.sdk.retail.protocol.ByteplusRetail.WriteUserEventsRequest;
+import static byteplus.sdk.retail.protocol.ByteplusRetail.WriteUserEventsResponse;
+
+// Coalesces single UserEvents written from many threads into
+// WriteUserEvents requests of at most 100 events.
+// A batch is sent when it is full, or when the linger time of its first event
+// is reached, whichever comes first.
+// At most `maxInFlight` batches are sending at the same time, a producer which
+// fills a batch while all the permits are taken is blocked until one is released.
+@Slf4j
+public class UserEventBatcher implements AutoCloseable {
+
+    @Accessors(chain = true)
+    @Setter
+    public static class Param {
+        // Max events in one request, can not exceed MAX_WRITE_ITEM_COUNT
+        private int batchSize = MAX_WRITE_ITEM_COUNT;
+
+        // Max time the first event of a batch waits before the batch is sent
+        private Duration linger = Duration.ofMillis(50);
+
+        // Max concurrent WriteUserEvents calls
+        private int maxInFlight = 4;
+    }
+
+    private final RetailClient client;
+
+    private final Option[] opts;
+
+    private final int batchSize;
+
+    private final Duration linger;
+
+    private final Semaphore inFlight;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+
+    // The batch which is accepting events, guarded by `lock`
+    private Batch current;
+
+    // guarded by `lock`
+    private boolean closed;
+
+    // Batches taken out of `current` and not completed yet, including the ones
+    // still waiting for a permit, guarded by `lock`
+    private int pending;
+
+    public UserEventBatcher(RetailClient client, Param param, Option... opts) {
+        if (param.batchSize <= 0 || param.batchSize > MAX_WRITE_ITEM_COUNT) {
+            throw new RuntimeException("Batch size should be in (0, " + MAX_WRITE_ITEM_COUNT + "]");
+        }
+        if (param.maxInFlight <= 0) {
+            throw new RuntimeException("Max in flight should be positive");
+        }
+        this.client = client;
+        // every batch is a request of its own
+        this.opts = Option.withoutRequestId(opts);
+        this.batchSize = param.batchSize;
+        this.linger = param.linger;
+        this.inFlight = new Semaphore(param.maxInFlight);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "byteplus-user-event-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public UserEventBatcher(RetailClient client, Option... opts) {
+        this(client, new Param(), opts);
+    }
+
+    // Adds an event to the current batch.
+    // The returned future is completed with the response of the request the
+    // event was sent in, one should check `errors` of the response to find
+    // the events which failed.
+    public CompletableFuture<WriteUserEventsResponse> write(UserEvent event) {
+        Batch full = null;
+        CompletableFuture<WriteUserEventsResponse> future;
+        synchronized (lock) {
+            // checked under the lock, so no linger task is scheduled after close shuts down the scheduler
+            if (closed) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(new BizException("UserEventBatcher is closed"));
+                return future;
+            }
+            if (Objects.isNull(current)) {
+                Batch batch = new Batch(batchSize);
+                batch.lingerTask = scheduler.schedule(
+                        () -> flush(batch), linger.toMillis(), TimeUnit.MILLISECONDS);
+                current = batch;
+            }
+            current.events.add(event);
+            future = current.future;
+            if (current.events.size() >= batchSize) {
+                full = current;
+                current = null;
+                pending++;
+            }
+        }
+        if (Objects.nonNull(full)) {
+            full.lingerTask.cancel(false);
+            send(full);
+        }
+        return future;
+    }
+
+    // Sends the current batch immediately, no matter whether it is full.
+    public void flush() {
+        Batch batch;
+        synchronized (lock) {
+            batch = current;
+            current = null;
+            if (Objects.nonNull(batch)) {
+                pending++;
+            }
+        }
+        if (Objects.nonNull(batch)) {
+            batch.lingerTask.cancel(false);
+            send(batch);
+        }
+    }
+
+    // Sends the remaining events and waits for all the in-flight requests,
+    // including the batches whose producers are still waiting for a permit.
+    // Events written after close are rejected.
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler.shutdown();
+    }
+
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                // already sent because of full or flush
+                return;
+            }
+            current = null;
+            pending++;
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.future.completeExceptionally(new BizException("interrupted while waiting to send user events"));
+            onBatchDone();
+            return;
+        }
+        WriteUserEventsRequest request = WriteUserEventsRequest.newBuilder()
+                .addAllUserEvents(batch.events)
+                .build();
+        client.writeUserEventsAsync(request, opts).whenComplete((response, e) -> {
+            inFlight.release();
+            if (Objects.nonNull(e)) {
+                log.warn("[ByteplusSDK][UserEventBatcher] write {} events fail, err:{}",
+                        batch.events.size(), e.getMessage());
+                batch.future.completeExceptionally(e);
+            } else {
+                batch.future.complete(response);
+            }
+            onBatchDone();
+        });
+    }
+
+    private void onBatchDone() {
+        synchronized (lock) {
+            pending--;
+            lock.notifyAll();
+        }
+    }
+
+    private static class Batch {
+        private final List<UserEvent> events;
+
+        private final CompletableFuture<WriteUserEventsResponse> future = new CompletableFuture<>();
+
+        private ScheduledFuture<?> lingerTask;
+
+        private Batch(int batchSize) {
+            this.events = new ArrayList<>(batchSize);
+        }
+    }
+}
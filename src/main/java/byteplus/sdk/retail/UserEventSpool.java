@@ -0,0 +1,60 @@
+package byteplus.sdk.retail;
+
+import byteplus.sdk.common.WriteSpool;
+import byteplus.sdk.core.BizException;
+import byteplus.sdk.core.NetException;
+import byteplus.sdk.core.Option;
+import byteplus.sdk.core.ResponseStatus;
+import byteplus.sdk.retail.protocol.ByteplusRetail.UserEvent;
+import byteplus.sdk.retail.protocol.ByteplusRetail.WriteUserEventsRequest;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+// Spools user events on local disk and writes them to the server in the
+// background, so events survive outages of the server, see WriteSpool.
+// Events can be spooled always, or only after writeUserEvents failed.
+@Slf4j
+public class UserEventSpool implements AutoCloseable {
+    private final RetailClient client;
+
+    private final Option[] opts;
+
+    private final WriteSpool spool;
+
+    public UserEventSpool(RetailClient client, WriteSpool.Param param, Option... opts) throws BizException {
+        this.client = client;
+        this.opts = opts;
+        this.spool = new WriteSpool(param, this::writeRecords, client::hasAvailableHost);
+    }
+
+    // Spools the event, fails when the spool is full or closed
+    public void write(UserEvent event) throws BizException {
+        spool.append(event.toByteArray());
+    }
+
+    public void write(List<UserEvent> events) throws BizException {
+        for (UserEvent event : events) {
+            spool.append(event.toByteArray());
+        }
+    }
+
+    // Stops writing, the events not written yet stay on disk
+    @Override
+    public void close() {
+        spool.close();
+    }
+
+    private int writeRecords(List<byte[]> records, String batchId) throws NetException, BizException {
+        WriteUserEventsRequest.Builder request = WriteUserEventsRequest.newBuilder();
+        for (byte[] record : records) {
+            try {
+                request.addUserEvents(UserEvent.parseFrom(record));
+            } catch (InvalidProtocolBufferException e) {
+                log.warn("[ByteplusSDK][UserEventSpool] skip broken event, err:{}", e.getMessage());
+            }
+        }
+        return ResponseStatus.codeOf(client.writeUserEvents(request.build(), Option.withRequestId(opts, batchId)));
+    }
+}